@@ -0,0 +1,76 @@
+package com.lee.springtransaction.attribute;
+
+import com.lee.springtransaction.order.Order;
+import com.lee.springtransaction.order.OrderService;
+import com.lee.springtransaction.propagation.Log;
+import com.lee.springtransaction.propagation.LogRepository;
+import com.lee.springtransaction.propagation.Member;
+import com.lee.springtransaction.propagation.MemberRepository;
+import com.lee.springtransaction.propagation.MemberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransactionInterceptor가 호출마다 수행하는 트랜잭션 속성 조회 비용
+ * - annotation   : 스프링 기본 AnnotationTransactionAttributeSource (캐시 키 객체 생성 + ConcurrentHashMap 조회)
+ * - precomputed  : PrecomputedTransactionAttributeSource (고정된 테이블 조회)
+ *
+ * gc 프로파일러의 gc.alloc.rate.norm 으로 호출당 할당 바이트를 비교한다. (precomputed -> 0에 가까워야 한다)
+ * 실행 -> ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionAttributeBenchmark {
+
+    @Param({"annotation", "precomputed"})
+    public String sourceType;
+
+    private TransactionAttributeSource source;
+    private Method joinV1;
+    private Method order;
+    private Method memberSave;
+    private Method logSave;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        AnnotationTransactionAttributeSource annotationSource = new AnnotationTransactionAttributeSource();
+        if("precomputed".equals(sourceType)){
+            PrecomputedTransactionAttributeSource precomputed = new PrecomputedTransactionAttributeSource(annotationSource);
+            precomputed.register(MemberService.class);
+            precomputed.register(OrderService.class);
+            precomputed.register(MemberRepository.class);
+            precomputed.register(LogRepository.class);
+            precomputed.freeze();
+            source = precomputed;
+        }else{
+            source = annotationSource;
+        }
+
+        joinV1 = MemberService.class.getMethod("joinV1", String.class);
+        order = OrderService.class.getMethod("order", Order.class);
+        memberSave = MemberRepository.class.getMethod("save", Member.class);
+        logSave = LogRepository.class.getMethod("save", Log.class);
+    }
+
+    @Benchmark
+    public void lookup(Blackhole blackhole){
+        blackhole.consume(source.getTransactionAttribute(joinV1, MemberService.class));
+        blackhole.consume(source.getTransactionAttribute(order, OrderService.class));
+        blackhole.consume(source.getTransactionAttribute(memberSave, MemberRepository.class));
+        blackhole.consume(source.getTransactionAttribute(logSave, LogRepository.class));
+    }
+}
@@ -0,0 +1,201 @@
+package com.lee.springtransaction.propagation;
+
+import com.lee.springtransaction.SpringTransactionApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MemberService / BasicTransactionTest 의 전파 시나리오별 처리량과 지연시간(SampleTime -> p99 등)을 측정한다.
+ * 각 시나리오는 DataSourceTransactionManager, JpaTransactionManager 두 가지로 실행된다. (embedded H2)
+ * 트랜잭션 매니저 자체의 비용만 측정한다.
+ * - 백그라운드 작업(outbox relay), 영속성 컨텍스트 governor, 재시도 advisor는 끈다.
+ * - metrics/policy 데코레이터를 끄고 스프링 부트가 등록한 JpaTransactionManager를 그대로 사용한다.
+ * - 두 매니저 모두 같은 dataSource(LazyConnectionDataSourceProxy, 커넥션 중첩 추적 포함)를 사용한다.
+ *
+ * - singleTransaction : joinV1 처럼 하나의 물리 트랜잭션
+ * - nestedRequired    : 외부 트랜잭션에 내부 트랜잭션(REQUIRED)이 참여
+ * - requiresNew       : LogRepository.save 처럼 외부 트랜잭션을 보류하고 신규 트랜잭션 시작
+ * - rollbackOnly      : 내부 트랜잭션 롤백 -> 외부 커밋 시 UnexpectedRollbackException
+ * - nested            : LogRepository.saveNested 처럼 외부 트랜잭션의 커넥션에 savepoint를 만들어 참여
+ * - requiresNewRollback / nestedRollback : joinV2 / joinV4 의 로그 저장 실패 흐름 (내부만 롤백, 외부 커밋)
+ *
+ * 실행 -> ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropagationBenchmark {
+
+    private static final String INSERT_MEMBER_SQL = "insert into member (id, username) values (?, ?)";
+    private static final String INSERT_LOG_SQL = "insert into log (id, message) values (?, ?)";
+
+    @Param({"jdbc", "jpa"})
+    public String transactionManagerType;
+
+    private ConfigurableApplicationContext context;
+    private PlatformTransactionManager transactionManager;
+    private JdbcTemplate jdbcTemplate;
+
+    // 벤치마크 전용 DB 이므로 시퀀스 대신 메모리에서 id를 발급한다.
+    private final AtomicLong ids = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context = new SpringApplicationBuilder(SpringTransactionApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                        "logging.level.org.hibernate.resource.transaction=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "outbox.relay.enabled=false",
+                        "transaction.persistence-context.enabled=false",
+                        "retry.enabled=false",
+                        "transaction.metrics.enabled=false",
+                        "transaction.policy.enabled=false")
+                .run();
+
+        DataSource dataSource = context.getBean(DataSource.class);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        if("jdbc".equals(transactionManagerType)){
+            transactionManager = new DataSourceTransactionManager(dataSource);
+        }else{
+            // 스프링 부트가 등록한 JpaTransactionManager (데코레이터가 없으므로 그대로 조회된다)
+            transactionManager = context.getBean(JpaTransactionManager.class);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public void singleTransaction(){
+        TransactionStatus status = transactionManager.getTransaction(new DefaultTransactionAttribute());
+        insertMember();
+        insertLog();
+        transactionManager.commit(status);
+    }
+
+    @Benchmark
+    public void nestedRequired(){
+        TransactionStatus outer = transactionManager.getTransaction(new DefaultTransactionAttribute());
+        insertMember();
+
+        TransactionStatus inner = transactionManager.getTransaction(new DefaultTransactionAttribute());
+        insertLog();
+        transactionManager.commit(inner);
+
+        transactionManager.commit(outer);
+    }
+
+    @Benchmark
+    public void requiresNew(){
+        TransactionStatus outer = transactionManager.getTransaction(new DefaultTransactionAttribute());
+        insertMember();
+
+        DefaultTransactionAttribute definition = new DefaultTransactionAttribute();
+        definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        TransactionStatus inner = transactionManager.getTransaction(definition);
+        insertLog();
+        transactionManager.commit(inner);
+
+        transactionManager.commit(outer);
+    }
+
+    @Benchmark
+    public void nested(){
+        TransactionStatus outer = transactionManager.getTransaction(new DefaultTransactionAttribute());
+        insertMember();
+
+        TransactionStatus inner = transactionManager.getTransaction(nestedDefinition());
+        insertLog();
+        transactionManager.commit(inner); // release savepoint
+
+        transactionManager.commit(outer);
+    }
+
+    @Benchmark
+    public void requiresNewRollback(){
+        TransactionStatus outer = transactionManager.getTransaction(new DefaultTransactionAttribute());
+        insertMember();
+
+        DefaultTransactionAttribute definition = new DefaultTransactionAttribute();
+        definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        TransactionStatus inner = transactionManager.getTransaction(definition);
+        insertLog();
+        transactionManager.rollback(inner);
+
+        transactionManager.commit(outer);
+    }
+
+    @Benchmark
+    public void nestedRollback(){
+        TransactionStatus outer = transactionManager.getTransaction(new DefaultTransactionAttribute());
+        insertMember();
+
+        TransactionStatus inner = transactionManager.getTransaction(nestedDefinition());
+        insertLog();
+        transactionManager.rollback(inner); // rollback to savepoint
+
+        transactionManager.commit(outer);
+    }
+
+    @Benchmark
+    public boolean rollbackOnly(){
+        TransactionStatus outer = transactionManager.getTransaction(new DefaultTransactionAttribute());
+        insertMember();
+
+        TransactionStatus inner = transactionManager.getTransaction(new DefaultTransactionAttribute());
+        insertLog();
+        transactionManager.rollback(inner); // rollback-only marked
+
+        try {
+            transactionManager.commit(outer);
+            return false;
+        }catch (UnexpectedRollbackException e){
+            return true;
+        }
+    }
+
+    private static DefaultTransactionAttribute nestedDefinition(){
+        DefaultTransactionAttribute definition = new DefaultTransactionAttribute();
+        definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        return definition;
+    }
+
+    private void insertMember(){
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update(INSERT_MEMBER_SQL, id, "member" + id);
+    }
+
+    private void insertLog(){
+        long id = ids.incrementAndGet();
+        jdbcTemplate.update(INSERT_LOG_SQL, id, "log" + id);
+    }
+}
@@ -2,8 +2,14 @@ package com.lee.springtransaction;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC는 ReactiveConfig에서 직접 구성한다. (ConnectionFactory 빈이 생기면 JDBC DataSource 자동 설정이 동작하지 않는다)
+@SpringBootApplication(exclude = {
+        R2dbcAutoConfiguration.class,
+        R2dbcTransactionManagerAutoConfiguration.class
+})
 public class SpringTransactionApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,18 @@
+package com.lee.springtransaction.attribute;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * transaction.attribute-table.enabled=false 로 끌 수 있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "transaction.attribute-table.enabled", havingValue = "true", matchIfMissing = true)
+public class PrecomputedTransactionAttributeConfig {
+
+    @Bean
+    public static PrecomputedTransactionAttributeSourcePostProcessor precomputedTransactionAttributeSourcePostProcessor(){
+        return new PrecomputedTransactionAttributeSourcePostProcessor();
+    }
+}
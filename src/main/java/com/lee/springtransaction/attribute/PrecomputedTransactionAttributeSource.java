@@ -0,0 +1,142 @@
+package com.lee.springtransaction.attribute;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Transactional 프록시가 호출마다 조회하는 트랜잭션 속성을 시작 시점에 미리 계산해 둔다.
+ *
+ * 스프링 기본 구현(AnnotationTransactionAttributeSource)도 결과를 캐시하지만,
+ * 호출마다 캐시 키(MethodClassKey) 객체를 생성하고 ConcurrentHashMap을 조회한다.
+ * -> 시작 시점에 프록시 대상 클래스의 모든 메서드 속성을 계산해서 변경 불가능한 Method -> 속성 테이블을 만든다.
+ *    이후 조회는 객체를 생성하지 않는다.
+ *
+ * - 시작 중에는 원래 구현을 그대로 사용하면서 조회된 대상 클래스를 기록한다. (프록시 생성 시점의 pointcut 검사)
+ * - 모든 싱글톤 빈 생성이 끝나면(afterSingletonsInstantiated) 테이블을 만들고 고정한다.
+ * - 트랜잭션 이름(joinpoint 이름)도 테이블을 만들 때 속성에 설정해 둔다. -> 호출마다 이름 문자열과 속성 래퍼를 만들지 않는다.
+ * - 테이블에 없는 조회(늦게 생성된 빈 등)는 원래 구현으로 처리하고 misses로 집계한다.
+ */
+@Slf4j
+public class PrecomputedTransactionAttributeSource implements TransactionAttributeSource, SmartInitializingSingleton {
+
+    private final TransactionAttributeSource delegate;
+    private final Set<Class<?>> targetClasses = ConcurrentHashMap.newKeySet();
+    private final LongAdder misses = new LongAdder();
+
+    // 고정되기 전에는 null
+    private volatile Map<Method, Entry> table;
+
+    public PrecomputedTransactionAttributeSource(TransactionAttributeSource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isCandidateClass(Class<?> targetClass) {
+        return delegate.isCandidateClass(targetClass);
+    }
+
+    @Override
+    @Nullable
+    public TransactionAttribute getTransactionAttribute(Method method, @Nullable Class<?> targetClass) {
+        Map<Method, Entry> frozen = table;
+        if(frozen != null){
+            for (Entry entry = frozen.get(method); entry != null; entry = entry.next) {
+                if(entry.targetClass == targetClass){
+                    return entry.attribute;
+                }
+            }
+            misses.increment();
+        }else if(targetClass != null){
+            targetClasses.add(targetClass);
+        }
+        return delegate.getTransactionAttribute(method, targetClass);
+    }
+
+    /**
+     * 테이블에 포함할 대상 클래스를 직접 등록한다. freeze() 전에 호출해야 한다.
+     */
+    public void register(Class<?> targetClass){
+        targetClasses.add(targetClass);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        freeze();
+    }
+
+    public synchronized void freeze(){
+        Map<Method, Entry> built = new HashMap<>();
+        for (Class<?> targetClass : targetClasses) {
+            for (Method method : candidateMethods(targetClass)) {
+                TransactionAttribute attribute = delegate.getTransactionAttribute(method, targetClass);
+                if(attribute instanceof DefaultTransactionAttribute){
+                    cacheName((DefaultTransactionAttribute) attribute, method, targetClass);
+                }
+                built.put(method, new Entry(targetClass, attribute, built.get(method)));
+            }
+        }
+        table = Collections.unmodifiableMap(built);
+        log.info("트랜잭션 속성 테이블 생성 classes -> {}, methods -> {}", targetClasses.size(), built.size());
+    }
+
+    // 이름이 없으면 TransactionInterceptor가 호출마다 이름을 가진 속성 객체를 새로 만든다.
+    private static void cacheName(DefaultTransactionAttribute attribute, Method method, Class<?> targetClass){
+        if(attribute.getDescriptor() == null){
+            attribute.setDescriptor(ClassUtils.getQualifiedMethodName(method, targetClass));
+        }
+        if(attribute.getName() == null){
+            attribute.setName(attribute.getDescriptor());
+        }
+    }
+
+    public boolean isFrozen(){
+        return table != null;
+    }
+
+    public long getMisses(){
+        return misses.sum();
+    }
+
+    // 프록시가 전달할 수 있는 메서드 -> 클래스 계층에 선언된 메서드 + 인터페이스 메서드
+    private static Set<Method> candidateMethods(Class<?> targetClass){
+        Class<?> userClass = ClassUtils.getUserClass(targetClass);
+        Set<Method> methods = new LinkedHashSet<>();
+        ReflectionUtils.doWithMethods(userClass, methods::add, ReflectionUtils.USER_DECLARED_METHODS);
+        for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(userClass)) {
+            methods.addAll(Arrays.asList(ifc.getMethods()));
+        }
+        return methods;
+    }
+
+    // 같은 메서드를 여러 대상 클래스에서 호출할 수 있으므로(상속) 대상 클래스별로 연결한다.
+    private static final class Entry {
+
+        private final Class<?> targetClass;
+        @Nullable
+        private final TransactionAttribute attribute;
+        @Nullable
+        private final Entry next;
+
+        Entry(Class<?> targetClass, @Nullable TransactionAttribute attribute, @Nullable Entry next) {
+            this.targetClass = targetClass;
+            this.attribute = attribute;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.lee.springtransaction.attribute;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+/**
+ * @EnableTransactionManagement가 등록한 TransactionAttributeSource를 PrecomputedTransactionAttributeSource로 감싼다.
+ * 트랜잭션 advisor가 생성되기 전에 적용되어야 하므로 PriorityOrdered로 먼저 등록한다.
+ */
+public class PrecomputedTransactionAttributeSourcePostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if(bean instanceof TransactionAttributeSource && !(bean instanceof PrecomputedTransactionAttributeSource)){
+            return new PrecomputedTransactionAttributeSource((TransactionAttributeSource) bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
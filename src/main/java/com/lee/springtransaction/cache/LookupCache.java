@@ -0,0 +1,209 @@
+package com.lee.springtransaction.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * 크기 제한(LRU) + TTL 조회 캐시
+ * - 조회 결과가 없는 경우(Optional.empty)도 캐시한다.(negative caching)
+ * - 무효화는 쓰기 트랜잭션이 커밋된 이후에만 한다.(evictAfterCommit)
+ *   -> 롤백된 트랜잭션은 캐시를 건드리지 않는다.
+ * - 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 자신의 변경을 봐야 하므로 캐시를 사용하지 않는다.(isReadPath)
+ * - 값이 변경 가능한 객체(엔티티 등)이면 copier를 지정한다.
+ *   -> 캐시에는 복사본을 넣고, 조회할 때마다 복사본을 반환한다. 한 호출자의 변경이 다른 호출자에게 보이지 않는다.
+ * - 캐시 hit는 락을 잡지 않는다.(ConcurrentHashMap) 크기를 넘으면 마지막 조회 시각이 오래된 항목부터 한 번에 정리한다.
+ */
+public class LookupCache<K, V> {
+
+    // 무효화 세대 stripe 수 (2의 제곱)
+    private static final int GENERATION_STRIPES = 64;
+
+    private final int maxSize;
+    // 크기를 넘으면 이 크기까지 줄인다. -> 정렬 비용을 여러 번의 저장에 나눈다.
+    private final int trimSize;
+    private final long ttlNanos;
+    private final UnaryOperator<V> copier;
+    private final ConcurrentMap<K, CachedValue<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    // 키가 속한 stripe에서 무효화가 일어날 때마다 증가한다. 조회 도중 같은 stripe의 무효화가 있었다면 조회 결과를 캐시하지 않는다.
+    // -> 다른 키의 무효화는 (같은 stripe가 아니면) 진행 중인 조회에 영향을 주지 않는다.
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    // 변경할 수 없는 값(String 등)
+    public LookupCache(int maxSize, long ttl, TimeUnit unit) {
+        this(maxSize, ttl, unit, UnaryOperator.identity());
+    }
+
+    public LookupCache(int maxSize, long ttl, TimeUnit unit, UnaryOperator<V> copier) {
+        this.maxSize = maxSize;
+        this.trimSize = maxSize - maxSize / 10;
+        this.copier = copier;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * 트랜잭션이 없거나 읽기 전용 트랜잭션이면 캐시를 사용할 수 있다.
+     */
+    public static boolean isReadPath(){
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    public Optional<V> get(K key, Function<K, Optional<V>> loader){
+        CachedValue<V> entry = hit(key);
+        if(entry != null){
+            return entry.value.map(copier);
+        }
+
+        long generation = generation(key);
+        Optional<V> value = loader.apply(key);
+        CachedValue<V> loaded = new CachedValue<>(value.map(copier), System.nanoTime() + ttlNanos);
+
+        // 세대 확인과 저장은 키 단위로 원자적으로 한다.
+        // evict/put은 세대를 올린 뒤에 항목을 바꾸므로 확인 이후의 무효화도 조회 결과를 덮어쓴다.
+        entries.compute(key, (k, current) -> generation(k) == generation ? loaded : current);
+        trim();
+        return value;
+    }
+
+    /**
+     * 캐시에 있으면 반환하고, 없으면 조회만 하고 캐시에 넣지 않는다.
+     * 조회 결과가 최신이 아닐 수 있을 때(replica 조회 등) 사용한다.
+     */
+    public Optional<V> getOrLoad(K key, Function<K, Optional<V>> loader){
+        CachedValue<V> entry = hit(key);
+        if(entry != null){
+            return entry.value.map(copier);
+        }
+        return loader.apply(key);
+    }
+
+    public void evict(K key){
+        generations.incrementAndGet(stripe(key));
+        entries.remove(key);
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 이후에 무효화한다. 트랜잭션 동기화가 없으면 바로 무효화한다.
+     */
+    public void evictAfterCommit(K key){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            evict(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(key);
+            }
+        });
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 이후에 값을 넣는다. 트랜잭션 동기화가 없으면 바로 넣는다.
+     * 조회 도중에 넣어진 값은 조회 결과로 덮어쓰지 않는다.
+     */
+    public void putAfterCommit(K key, V value){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            put(key, value);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(key, value);
+            }
+        });
+    }
+
+    private void put(K key, V value){
+        generations.incrementAndGet(stripe(key));
+        entries.put(key, new CachedValue<>(Optional.of(copier.apply(value)), System.nanoTime() + ttlNanos));
+        trim();
+    }
+
+    public int size(){
+        return entries.size();
+    }
+
+    // 만료되지 않은 항목이면 마지막 조회 시각을 갱신해서 반환한다.
+    private CachedValue<V> hit(K key){
+        CachedValue<V> entry = entries.get(key);
+        if(entry == null){
+            return null;
+        }
+        long now = System.nanoTime();
+        if(entry.isExpired(now)){
+            entries.remove(key, entry);
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry;
+    }
+
+    /**
+     * 크기를 넘으면 한 쓰레드만 정리한다. 만료된 항목을 먼저 지우고, 그래도 크면 오래 조회되지 않은 항목부터 지운다.
+     * 정리 도중에 들어온 항목 때문에 잠시 maxSize를 넘을 수 있다.
+     */
+    private void trim(){
+        if(entries.size() <= maxSize || !trimming.compareAndSet(false, true)){
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            entries.values().removeIf(entry -> entry.isExpired(now));
+            int excess = entries.size() - trimSize;
+            if(excess <= 0){
+                return;
+            }
+            // excess 번째로 오래된 조회 시각까지 지운다. 그 사이에 다시 조회된 항목은 남는다.
+            long[] accessed = entries.values().stream().mapToLong(entry -> entry.lastAccess).toArray();
+            if(accessed.length == 0){
+                return;
+            }
+            Arrays.sort(accessed);
+            long threshold = accessed[Math.min(excess, accessed.length) - 1];
+            entries.values().removeIf(entry -> entry.lastAccess <= threshold);
+        }finally {
+            trimming.set(false);
+        }
+    }
+
+    private long generation(K key){
+        return generations.get(stripe(key));
+    }
+
+    private static int stripe(Object key){
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private static final class CachedValue<V> {
+
+        private final Optional<V> value;
+        private final long expiresAt;
+        // 정리할 때 LRU 순서로 사용한다. 정확한 순서일 필요는 없으므로 조회마다 덮어쓴다.
+        private volatile long lastAccess;
+
+        private CachedValue(Optional<V> value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.lastAccess = System.nanoTime();
+        }
+
+        private boolean isExpired(long now){
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.lee.springtransaction.datasource;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 커넥션 중첩 추적은 실제 커넥션을 가져오는 위치에 연결된다.
+ * - dataSource 빈을 직접 감싼다. -> lazy-connection을 끄거나 replica가 없어도 추적/guard가 동작한다.
+ * - LazyConnectionDataSourceProxy를 쓰면 그 안쪽에 연결된다. (LazyConnectionDataSourceConfig, ReplicaRoutingDataSourceConfig)
+ *   이미 추적 중인 DataSource는 다시 감싸지 않는다. (ConnectionNestingMonitor.track)
+ *
+ * transaction.connection-guard.enabled=true -> 중첩 커넥션이 풀 크기 * max-nested-share 를 넘으면 바로 실패
+ */
+@Configuration
+public class ConnectionNestingConfig {
+
+    @Bean
+    public static ConnectionNestingMonitor connectionNestingMonitor(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${transaction.connection-guard.enabled:false}") boolean guardEnabled,
+            @Value("${transaction.connection-guard.max-nested-share:0.5}") double maxNestedShare){
+        return new ConnectionNestingMonitor(poolSize, guardEnabled, maxNestedShare);
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionNestingDataSourcePostProcessor(ObjectProvider<ConnectionNestingMonitor> nestingMonitor){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if(LazyConnectionDataSourceConfig.DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource){
+                    return nestingMonitor.getObject().track((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.lee.springtransaction.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 실제 커넥션을 가져오고 반납할 때 ConnectionNestingMonitor에 알린다.
+ */
+public class ConnectionNestingDataSource extends DelegatingDataSource {
+
+    private final ConnectionNestingMonitor monitor;
+
+    public ConnectionNestingDataSource(DataSource targetDataSource, ConnectionNestingMonitor monitor) {
+        super(targetDataSource);
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return monitor.acquire(obtainTargetDataSource(), null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return monitor.acquire(obtainTargetDataSource(), username, password);
+    }
+}
@@ -0,0 +1,136 @@
+package com.lee.springtransaction.datasource;
+
+import com.lee.springtransaction.metrics.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 쓰레드별로 동시에 가지고 있는 물리 커넥션 수(중첩 깊이)를 추적한다.
+ * MemberService.joinV1/joinV2 -> LogRepository.save(REQUIRES_NEW) 처럼 외부 트랜잭션의 커넥션을 가진 채로
+ * 커넥션을 하나 더 가져오면 깊이가 2가 된다.
+ * 모든 커넥션을 외부 트랜잭션이 가지고 내부 트랜잭션이 커넥션을 기다리면 풀 전체가 교착상태가 된다.
+ *
+ * - 최대 중첩 깊이, 중첩 획득 수, 커넥션 풀 대기 시간을 집계한다.
+ * - guard 모드 -> 중첩 커넥션(깊이 2 이상) 수가 풀 크기 * max-nested-share 를 넘으면
+ *   풀에서 기다리지 않고 NestedConnectionLimitException을 던진다.
+ *
+ * LazyConnectionDataSourceProxy 안쪽(실제 커넥션을 가져오는 위치)에 ConnectionNestingDataSource로 연결한다.
+ */
+@Slf4j
+public class ConnectionNestingMonitor {
+
+    // 쓰레드마다 자신의 카운터를 가진다. 커넥션을 다른 쓰레드에서 close 하면 그 쓰레드가 가져온 쓰레드의 카운터를 줄이므로 atomic
+    private static final ThreadLocal<AtomicInteger> DEPTH = ThreadLocal.withInitial(AtomicInteger::new);
+
+    private final boolean guardEnabled;
+    private final int maxNestedConnections;
+
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicInteger nestedInUse = new AtomicInteger();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder nestedAcquisitions = new LongAdder();
+    private final LongAdder guardRejections = new LongAdder();
+    private final LatencyHistogram poolWait = new LatencyHistogram();
+
+    public ConnectionNestingMonitor(int poolSize, boolean guardEnabled, double maxNestedShare) {
+        this.guardEnabled = guardEnabled;
+        this.maxNestedConnections = (int) Math.floor(poolSize * maxNestedShare);
+        log.info("ConnectionNestingMonitor guard -> {}, maxNestedConnections -> {}", guardEnabled, maxNestedConnections);
+    }
+
+    /**
+     * 이미 추적 중인 DataSource(감싼 프록시 포함)는 그대로 반환한다. -> 같은 커넥션을 두 번 세지 않는다.
+     */
+    public DataSource track(DataSource target){
+        if(isTracked(target)){
+            return target;
+        }
+        return new ConnectionNestingDataSource(target, this);
+    }
+
+    public static boolean isTracked(DataSource dataSource){
+        try {
+            return dataSource.isWrapperFor(ConnectionNestingDataSource.class);
+        }catch (SQLException e){
+            return false;
+        }
+    }
+
+    /**
+     * 현재 쓰레드가 가지고 있는 물리 커넥션 수
+     */
+    public static int currentDepth(){
+        return DEPTH.get().get();
+    }
+
+    Connection acquire(DataSource target, String username, String password) throws SQLException {
+        AtomicInteger depth = DEPTH.get();
+        boolean nested = depth.get() > 0;
+        if(nested){
+            nestedAcquisitions.increment();
+            if(nestedInUse.incrementAndGet() > maxNestedConnections && guardEnabled){
+                nestedInUse.decrementAndGet();
+                guardRejections.increment();
+                throw new NestedConnectionLimitException("중첩 커넥션 허용 개수(" + maxNestedConnections
+                        + ")를 넘었습니다. 현재 쓰레드가 이미 커넥션 " + depth.get() + "개를 가지고 있습니다."
+                        + " REQUIRES_NEW 트랜잭션이 외부 트랜잭션의 커넥션을 가진 채로 커넥션을 기다리면 풀이 교착상태가 될 수 있습니다.");
+            }
+        }
+
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = username != null ? target.getConnection(username, password) : target.getConnection();
+        }catch (SQLException | RuntimeException e){
+            if(nested){
+                nestedInUse.decrementAndGet();
+            }
+            throw e;
+        }
+        poolWait.record(System.nanoTime() - start);
+        acquisitions.increment();
+        maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+        return TrackedConnection.wrap(connection, () -> release(depth, nested));
+    }
+
+    // 커넥션을 가져온 쓰레드의 깊이를 줄인다. (다른 쓰레드에서 close 해도 가져온 쓰레드의 카운터)
+    private void release(AtomicInteger depth, boolean nested){
+        depth.decrementAndGet();
+        if(nested){
+            nestedInUse.decrementAndGet();
+        }
+    }
+
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    public int getNestedInUse() {
+        return nestedInUse.get();
+    }
+
+    public int getMaxNestedConnections() {
+        return maxNestedConnections;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getNestedAcquisitions() {
+        return nestedAcquisitions.sum();
+    }
+
+    public long getGuardRejections() {
+        return guardRejections.sum();
+    }
+
+    public LatencyHistogram getPoolWait() {
+        return poolWait;
+    }
+}
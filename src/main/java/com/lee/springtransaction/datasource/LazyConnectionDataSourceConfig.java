@@ -0,0 +1,46 @@
+package com.lee.springtransaction.datasource;
+
+import com.lee.springtransaction.policy.LockTimeoutDataSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * 트랜잭션이 시작될 때가 아니라 첫 번째 SQL을 실행할 때 실제 커넥션을 가져온다.
+ * 트랜잭션 시작 시에는 프록시 커넥션을 받고, autoCommit/readOnly/isolation 설정은 프록시에 기록해 두었다가
+ * 실제 커넥션을 가져올 때 적용한다.
+ * -> SQL을 실행하지 않는 트랜잭션(TransactionLevelTest, InternalCallV1Test)이나 결제 판단처럼
+ *    DB를 사용하기 전의 로직은 커넥션 풀의 커넥션을 점유하지 않는다.
+ *
+ * transaction.lazy-connection.enabled=true 일 때 스프링 부트가 등록한 dataSource 빈을 감싼다.
+ * 실제 커넥션은 ConnectionNestingMonitor를 거쳐서 가져온다. (쓰레드별 커넥션 중첩 추적, 이미 감싸져 있으면 그대로 사용)
+ * 실제 커넥션을 가져올 때 트랜잭션의 락 대기 시간 정책을 적용한다. (LockTimeoutDataSource)
+ */
+@Configuration
+@ConditionalOnProperty(name = "transaction.lazy-connection.enabled", havingValue = "true")
+public class LazyConnectionDataSourceConfig {
+
+    public static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    @Bean
+    public static BeanPostProcessor lazyConnectionDataSourcePostProcessor(ObjectProvider<ConnectionNestingMonitor> nestingMonitor){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if(DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource
+                        && !(bean instanceof LazyConnectionDataSourceProxy)){
+                    ConnectionNestingMonitor monitor = nestingMonitor.getIfAvailable();
+                    DataSource target = monitor != null ? monitor.track((DataSource) bean) : (DataSource) bean;
+                    return new LazyConnectionDataSourceProxy(new LockTimeoutDataSource(target));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package com.lee.springtransaction.datasource;
+
+import java.sql.SQLException;
+
+/**
+ * 이미 커넥션을 가진 쓰레드가 커넥션을 하나 더 가져오려고 할 때(REQUIRES_NEW 등),
+ * 중첩 커넥션 허용 개수를 넘으면 커넥션 풀에서 기다리지 않고 바로 발생한다.
+ * SQLState 08001 -> 재시도 대상이 아니다.
+ */
+public class NestedConnectionLimitException extends SQLException {
+
+    public NestedConnectionLimitException(String reason) {
+        super(reason, "08001");
+    }
+}
@@ -0,0 +1,20 @@
+package com.lee.springtransaction.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 현재 트랜잭션이 읽기 전용이면 replica, 아니면 primary 커넥션을 사용한다.
+ * 읽기 전용 여부는 트랜잭션이 시작된 다음에 설정되므로 LazyConnectionDataSourceProxy로 감싸서
+ * 첫 SQL을 실행할 때 커넥션을 고르도록 해야 한다.
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+}
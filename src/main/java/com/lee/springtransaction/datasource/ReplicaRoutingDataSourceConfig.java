@@ -0,0 +1,74 @@
+package com.lee.springtransaction.datasource;
+
+import com.lee.springtransaction.policy.LockTimeoutDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * readOnly = true 트랜잭션은 replica, 나머지는 primary DataSource를 사용한다.
+ * spring.datasource.replica.url 이 있을 때만 등록된다.
+ *
+ * - primary -> spring.datasource.*, spring.datasource.hikari.*
+ * - replica -> spring.datasource.replica.*, spring.datasource.replica.hikari.*
+ *   username, password가 없으면 primary 값을 사용한다.
+ * - 로컬에서는 같은 이름의 H2 메모리 DB를 두 커넥션 풀로 연결해서 확인할 수 있다.
+ *
+ * 읽기 전용 트랜잭션은 HibernateJpaDialect가 FlushMode.MANUAL로 시작하므로 flush 하지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.replica.url")
+public class ReplicaRoutingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties){
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${spring.datasource.replica.url}") String url,
+                                              @Value("${spring.datasource.replica.username:}") String username,
+                                              @Value("${spring.datasource.replica.password:}") String password){
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setUsername(StringUtils.hasText(username) ? username : properties.determineUsername());
+        dataSource.setPassword(StringUtils.hasText(username) ? password : properties.determinePassword());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                 ConnectionNestingMonitor nestingMonitor){
+        ReadOnlyRoutingDataSource routingDataSource = new ReadOnlyRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.<Object, Object>of(
+                ReadOnlyRoutingDataSource.PRIMARY, primaryDataSource,
+                ReadOnlyRoutingDataSource.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        // 트랜잭션의 readOnly 설정이 끝난 뒤 커넥션을 고를 수 있도록 항상 지연 획득한다.
+        // 실제 커넥션을 가져올 때 트랜잭션의 락 대기 시간 정책을 적용한다.
+        return new LazyConnectionDataSourceProxy(new LockTimeoutDataSource(nestingMonitor.track(routingDataSource)));
+    }
+}
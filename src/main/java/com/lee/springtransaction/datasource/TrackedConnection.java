@@ -0,0 +1,58 @@
+package com.lee.springtransaction.datasource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * close()가 처음 호출될 때 한 번만 onClose를 실행하는 커넥션 프록시
+ */
+final class TrackedConnection implements InvocationHandler {
+
+    private final Connection target;
+    private final Runnable onClose;
+    // 다른 쓰레드에서 close 할 수도 있다.
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private TrackedConnection(Connection target, Runnable onClose) {
+        this.target = target;
+        this.onClose = onClose;
+    }
+
+    static Connection wrap(Connection target, Runnable onClose){
+        return (Connection) Proxy.newProxyInstance(TrackedConnection.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new TrackedConnection(target, onClose));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "getTargetConnection":
+                return target;
+            case "close":
+                try {
+                    target.close();
+                }finally {
+                    if(closed.compareAndSet(false, true)){
+                        onClose.run();
+                    }
+                }
+                return null;
+            default:
+                try {
+                    return method.invoke(target, args);
+                }catch (InvocationTargetException e){
+                    throw e.getTargetException();
+                }
+        }
+    }
+}
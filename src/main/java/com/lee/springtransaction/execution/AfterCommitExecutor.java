@@ -0,0 +1,239 @@
+package com.lee.springtransaction.execution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 트랜잭션 안에서 등록한 작업을 커밋이 끝난 다음 작업 쓰레드에서 실행한다.
+ * 로그 저장, 알림처럼 커밋 이후에 해도 되는 작업을 트랜잭션 밖으로 빼서 락/커넥션을 잡고 있는 시간을 줄인다.
+ *
+ * - 커밋되면 등록한 순서대로 작업 쓰레드에 넘긴다. 롤백되면 버린다.
+ * - 트랜잭션 밖에서 등록하면 바로 작업 쓰레드에 넘긴다.
+ * - 같은 key(예: username)의 작업은 같은 작업 쓰레드(stripe)에서 커밋 순서대로 실행된다.
+ * - executeOnce -> 트랜잭션 하나에서 같은 key로 여러 번 등록해도 커밋 후 한 번만 실행한다. (relay 깨우기 등)
+ * - stripe마다 대기 작업 수를 queue-capacity로 제한한다.
+ *   가득 차면 커밋한 쓰레드를 offer-timeout 만큼 대기시키고, 그래도 자리가 없으면 버린다.(backpressure)
+ * - 작업이 실패해도 이미 커밋된 트랜잭션에는 영향이 없다. 기록만 한다.
+ */
+@Slf4j
+@Component
+public class AfterCommitExecutor {
+
+    private final Stripe[] stripes;
+    private final long offerTimeoutMillis;
+
+    // 작업 쓰레드에 넘겼지만 아직 끝나지 않은 작업 수
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AfterCommitExecutor(@Value("${transaction.after-commit.stripes:4}") int stripeCount,
+                               @Value("${transaction.after-commit.queue-capacity:10000}") int queueCapacity,
+                               @Value("${transaction.after-commit.offer-timeout-ms:100}") long offerTimeoutMillis) {
+        this.stripes = new Stripe[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe("after-commit-" + i, queueCapacity);
+        }
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 다음 task를 실행한다.
+     * @param key 같은 key의 작업은 순서대로 실행된다.
+     */
+    public void execute(String key, Runnable task){
+        PendingWork work = currentWork();
+        if(work == null){
+            dispatch(key, task);
+            return;
+        }
+        work.add(key, task);
+    }
+
+    /**
+     * 현재 트랜잭션에서 같은 key로 처음 등록한 task만 커밋된 다음 실행한다. 나중에 등록한 task는 무시한다.
+     * 트랜잭션 밖에서 호출하면 execute와 같다.
+     */
+    public void executeOnce(String key, Runnable task){
+        PendingWork work = currentWork();
+        if(work == null){
+            dispatch(key, task);
+            return;
+        }
+        if(work.onceKeys.add(key)){
+            work.add(key, task);
+        }
+    }
+
+    /**
+     * 넘겨진 작업이 모두 끝날 때까지 기다린다.
+     * @return 제한 시간 안에 모두 끝났으면 true
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pending.get() > 0){
+            if(System.nanoTime() - deadline >= 0){
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    // 롤백으로 버린 작업 수
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+
+    // 대기열이 가득 차서 버린 작업 수
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (Stripe stripe : stripes) {
+            stripe.executor.shutdown();
+        }
+        for (Stripe stripe : stripes) {
+            stripe.executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // 트랜잭션 밖이면 null
+    private PendingWork currentWork(){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()){
+            return null;
+        }
+        PendingWork work = (PendingWork) TransactionSynchronizationManager.getResource(this);
+        if(work == null){
+            work = new PendingWork();
+            TransactionSynchronizationManager.bindResource(this, work);
+            TransactionSynchronizationManager.registerSynchronization(work);
+        }
+        return work;
+    }
+
+    private void dispatch(String key, Runnable task){
+        Stripe stripe = stripes[Math.floorMod(key.hashCode(), stripes.length)];
+        try {
+            if(!stripe.slots.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)){
+                drop(key, "대기열 가득 참");
+                return;
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            drop(key, "대기 중 인터럽트");
+            return;
+        }
+        pending.incrementAndGet();
+        try {
+            stripe.executor.execute(() -> run(stripe, key, task));
+        }catch (RuntimeException e){
+            // 종료 중 (RejectedExecutionException)
+            stripe.slots.release();
+            pending.decrementAndGet();
+            drop(key, e.toString());
+        }
+    }
+
+    private void run(Stripe stripe, String key, Runnable task){
+        try {
+            task.run();
+            executed.incrementAndGet();
+        }catch (RuntimeException e){
+            failed.incrementAndGet();
+            log.warn("커밋 이후 작업 실패 key -> {}", key, e);
+        }finally {
+            stripe.slots.release();
+            pending.decrementAndGet();
+        }
+    }
+
+    private void drop(String key, String reason){
+        dropped.incrementAndGet();
+        log.warn("커밋 이후 작업을 실행하지 못했습니다. key -> {}, reason -> {}", key, reason);
+    }
+
+    // 트랜잭션 하나에서 등록한 작업
+    private final class PendingWork implements TransactionSynchronization {
+
+        private final List<String> keys = new ArrayList<>();
+        private final List<Runnable> tasks = new ArrayList<>();
+        // executeOnce로 등록한 key
+        private final Set<String> onceKeys = new HashSet<>();
+
+        private void add(String key, Runnable task){
+            keys.add(key);
+            tasks.add(task);
+        }
+
+        @Override
+        public void suspend() {
+            // REQUIRES_NEW -> 신규 트랜잭션에서 등록한 작업은 신규 트랜잭션이 커밋될 때 실행한다.
+            TransactionSynchronizationManager.unbindResource(AfterCommitExecutor.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(AfterCommitExecutor.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            for (int i = 0; i < tasks.size(); i++) {
+                dispatch(keys.get(i), tasks.get(i));
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AfterCommitExecutor.this);
+            if(status != STATUS_COMMITTED){
+                discarded.addAndGet(tasks.size());
+            }
+        }
+    }
+
+    private static final class Stripe {
+
+        private final ExecutorService executor;
+        private final Semaphore slots;
+
+        private Stripe(String name, int queueCapacity) {
+            // 쓰레드 하나 -> 같은 stripe의 작업은 넘겨진 순서대로 실행된다.
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.slots = new Semaphore(queueCapacity);
+        }
+    }
+}
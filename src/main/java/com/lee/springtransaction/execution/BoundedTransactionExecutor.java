@@ -0,0 +1,165 @@
+package com.lee.springtransaction.execution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 요청 하나를 쓰레드 하나에서 실행하고, 동시에 실행되는 트랜잭션 수를 커넥션 풀 크기에 맞게 제한한다.
+ * MemberService.join*, OrderService.order 처럼 트랜잭션 하나로 끝나는 작업을 실행한다.
+ *
+ * [쓰레드]
+ * - 실행 중인 JVM이 가상 쓰레드를 지원하면(JDK 21+) 작업마다 가상 쓰레드를 사용한다.
+ *   이 프로젝트는 Java 11로 컴파일하므로 리플렉션으로 확인한다.
+ * - 지원하지 않으면 허용 개수 크기의 고정 쓰레드 풀을 사용한다.
+ *
+ * [동시 트랜잭션 제한]
+ * - 허용 개수 = 커넥션 풀 크기 / 작업 하나가 동시에 사용하는 커넥션 수
+ *   REQUIRES_NEW(LogRepository.save)가 있으면 작업 하나가 커넥션을 2개 사용하므로 기본값은 2
+ * - 가상 쓰레드는 JDBC 드라이버의 synchronized 구간에서 캐리어 쓰레드를 고정(pinning)한다.
+ *   동시 트랜잭션 수를 제한하면 고정되는 캐리어 쓰레드 수도 허용 개수를 넘지 않는다.
+ *
+ * [트랜잭션 컨텍스트 검증]
+ * 트랜잭션 상태는 TransactionSynchronizationManager의 ThreadLocal에 저장된다.
+ * 작업 전후로 쓰레드에 트랜잭션 상태가 남아 있는지 확인하고, 남아 있으면 기록하고 정리한다.
+ */
+@Slf4j
+@Component
+public class BoundedTransactionExecutor {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrentTransactions;
+    private final boolean virtualThreads;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final AtomicLong contextLeaks = new AtomicLong();
+
+    public BoundedTransactionExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                      @Value("${transaction.executor.connections-per-task:2}") int connectionsPerTask,
+                                      @Value("${transaction.executor.virtual-threads:true}") boolean preferVirtualThreads) {
+        this.maxConcurrentTransactions = Math.max(1, poolSize / Math.max(1, connectionsPerTask));
+        this.permits = new Semaphore(maxConcurrentTransactions, true);
+
+        ExecutorService virtualExecutor = preferVirtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+        this.virtualThreads = virtualExecutor != null;
+        this.executor = virtualThreads ? virtualExecutor
+                : Executors.newFixedThreadPool(maxConcurrentTransactions, new NamedThreadFactory());
+        log.info("BoundedTransactionExecutor maxConcurrentTransactions -> {}, virtualThreads -> {}",
+                maxConcurrentTransactions, virtualThreads);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task){
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> run(task, future));
+        return future;
+    }
+
+    public CompletableFuture<Void> submit(Runnable task){
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private <T> void run(Callable<T> task, CompletableFuture<T> future){
+        try {
+            permits.acquire();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return;
+        }
+        try {
+            verifyClean("before");
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            future.complete(task.call());
+        }catch (Throwable e){
+            future.completeExceptionally(e);
+        }finally {
+            active.decrementAndGet();
+            verifyClean("after");
+            permits.release();
+        }
+    }
+
+    // 쓰레드에 다른 작업의 트랜잭션 상태가 남아 있으면 안 된다.
+    private void verifyClean(String phase){
+        boolean leaked = TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.getResourceMap().isEmpty();
+        if(!leaked){
+            return;
+        }
+        contextLeaks.incrementAndGet();
+        log.error("트랜잭션 컨텍스트가 쓰레드에 남아 있습니다. phase -> {}, resources -> {}",
+                phase, TransactionSynchronizationManager.getResourceMap().keySet());
+        for (Object key : new ArrayList<>(TransactionSynchronizationManager.getResourceMap().keySet())) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(key);
+        }
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.clear();
+    }
+
+    public int getMaxConcurrentTransactions() {
+        return maxConcurrentTransactions;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getPeakConcurrentTransactions() {
+        return peak.get();
+    }
+
+    public long getContextLeaks() {
+        return contextLeaks.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if(!executor.awaitTermination(30, TimeUnit.SECONDS)){
+            executor.shutdownNow();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor(){
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }catch (ReflectiveOperationException e){
+            return null;
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "tx-executor-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.lee.springtransaction.execution;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * transaction.group-commit.enabled=true 일 때만 GroupCommitExecutor를 등록한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "transaction.group-commit.enabled", havingValue = "true")
+public class GroupCommitConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public GroupCommitExecutor groupCommitExecutor(PlatformTransactionManager transactionManager,
+                                                   @Value("${transaction.group-commit.queue-capacity:10000}") int queueCapacity,
+                                                   @Value("${transaction.group-commit.max-batch-size:64}") int maxBatchSize,
+                                                   @Value("${transaction.group-commit.window-ms:5}") long windowMillis,
+                                                   @Value("${transaction.group-commit.offer-timeout-ms:100}") long offerTimeoutMillis){
+        return new GroupCommitExecutor(transactionManager, queueCapacity, maxBatchSize, windowMillis, offerTimeoutMillis);
+    }
+}
@@ -0,0 +1,228 @@
+package com.lee.springtransaction.execution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 동시에 들어온 작은 트랜잭션 작업(memberRepository.save, logRepository.save 등)을 모아서
+ * 하나의 물리 트랜잭션으로 실행한다. (group commit) -> 커밋(fsync) 횟수를 줄인다.
+ *
+ * - 첫 작업이 들어온 시점부터 window 동안 max-batch-size 까지 모은다.
+ * - 작업은 REQUIRED로 묶음 트랜잭션에 참여한다. 모든 작업이 성공하고 커밋되어야 각 작업의 결과를 완료한다.
+ * - 작업 하나라도 실패하거나 커밋이 실패하면 묶음 전체를 롤백하고, 작업을 하나씩 각자의 트랜잭션으로 다시 실행한다.
+ *   -> 실패한 작업만 실패하고 나머지 작업은 성공한다.
+ *
+ * [작업 작성 규칙]
+ * - 다시 실행될 수 있으므로 엔티티는 작업 안에서 생성해야 한다.
+ *   (롤백된 묶음에서 id를 받은 엔티티를 다시 persist 할 수 없다)
+ * - 같은 묶음의 작업은 영속성 컨텍스트와 락을 공유하므로 서로 독립적인 작업만 제출한다.
+ * - REQUIRES_NEW 처럼 별도 트랜잭션을 사용하는 작업은 묶음의 효과가 없다.
+ * - 작업에서 예외가 발생하면(체크 예외 포함) 롤백한다.
+ */
+@Slf4j
+public class GroupCommitExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Unit<?>> queue;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final long offerTimeoutMillis;
+
+    private final LongAdder units = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+
+    private final Thread leaderThread;
+    private volatile boolean running;
+
+    public GroupCommitExecutor(PlatformTransactionManager transactionManager, int queueCapacity, int maxBatchSize,
+                               long windowMillis, long offerTimeoutMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.leaderThread = new Thread(this::run, "group-commit");
+        this.leaderThread.setDaemon(true);
+    }
+
+    public void start(){
+        running = true;
+        leaderThread.start();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        leaderThread.join(TimeUnit.NANOSECONDS.toMillis(windowNanos) + 5_000);
+    }
+
+    /**
+     * 작업을 다음 묶음에 추가한다.
+     * 큐가 가득 차면 offer-timeout 만큼 대기하고, 그래도 자리가 없으면 RejectedExecutionException으로 완료한다.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> work){
+        Unit<T> unit = new Unit<>(work);
+        if(!running){
+            unit.future.completeExceptionally(new RejectedExecutionException("group commit executor 종료됨"));
+            return unit.future;
+        }
+        try {
+            if(!queue.offer(unit, offerTimeoutMillis, TimeUnit.MILLISECONDS)){
+                unit.future.completeExceptionally(new RejectedExecutionException("group commit 큐 가득 참"));
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            unit.future.completeExceptionally(e);
+        }
+        return unit.future;
+    }
+
+    public CompletableFuture<Void> submit(Runnable work){
+        return submit(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void run(){
+        List<Unit<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()){
+            try {
+                collect(batch);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                running = false;
+            }
+            if(!batch.isEmpty()){
+                execute(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Unit<?>> batch) throws InterruptedException {
+        Unit<?> first = queue.poll(windowNanos, TimeUnit.NANOSECONDS);
+        if(first == null){
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize){
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if(batch.size() >= maxBatchSize || remaining <= 0){
+                return;
+            }
+            Unit<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if(next == null){
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void execute(List<Unit<?>> batch){
+        batches.increment();
+        units.add(batch.size());
+        if(batch.size() == 1){
+            executeAlone(batch.get(0));
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Unit<?> unit : batch) {
+                    unit.call();
+                }
+            });
+            commits.increment();
+            for (Unit<?> unit : batch) {
+                unit.complete();
+            }
+        }catch (Throwable e){
+            // 어느 작업이 실패했는지와 관계없이 묶음 전체가 롤백되었으므로 모든 작업을 각자 다시 실행한다.
+            log.warn("group commit 실패, 한 건씩 다시 실행 size -> {}, cause -> {}", batch.size(), e.toString());
+            replays.increment();
+            for (Unit<?> unit : batch) {
+                executeAlone(unit);
+            }
+        }
+    }
+
+    private void executeAlone(Unit<?> unit){
+        try {
+            transactionTemplate.executeWithoutResult(status -> unit.call());
+            commits.increment();
+            unit.complete();
+        }catch (UnitFailure e){
+            unit.future.completeExceptionally(e.getCause());
+        }catch (Throwable e){
+            unit.future.completeExceptionally(e);
+        }
+    }
+
+    // 제출된 작업 수
+    public long getUnits() {
+        return units.sum();
+    }
+
+    // 묶음 수
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    // 물리 커밋 수 (묶음 커밋 + 한 건씩 다시 실행한 커밋)
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    // 묶음이 실패해서 한 건씩 다시 실행한 횟수
+    public long getReplays() {
+        return replays.sum();
+    }
+
+    private static final class Unit<T> {
+
+        private final Callable<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+
+        Unit(Callable<T> work) {
+            this.work = work;
+        }
+
+        void call(){
+            try {
+                result = work.call();
+            }catch (RuntimeException e){
+                throw e;
+            }catch (Exception e){
+                throw new UnitFailure(e);
+            }
+        }
+
+        void complete(){
+            future.complete(result);
+        }
+    }
+
+    // 작업의 체크 예외를 롤백시키기 위해 감싼다.
+    private static final class UnitFailure extends RuntimeException {
+
+        UnitFailure(Exception cause) {
+            super(cause);
+        }
+    }
+}
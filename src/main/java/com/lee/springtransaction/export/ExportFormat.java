@@ -0,0 +1,76 @@
+package com.lee.springtransaction.export;
+
+import com.lee.springtransaction.support.CsvStrings;
+import com.lee.springtransaction.support.JsonStrings;
+
+/**
+ * 내보내기 파일 형식, 파일은 gzip으로 압축한다.
+ */
+public enum ExportFormat {
+
+    CSV(".csv.gz") {
+        @Override
+        void appendHeader(StringBuilder sb, String[] columns) {
+            for (int i = 0; i < columns.length; i++) {
+                if(i > 0){
+                    sb.append(',');
+                }
+                CsvStrings.appendField(sb, columns[i]);
+            }
+            sb.append('\n');
+        }
+
+        @Override
+        void appendRow(StringBuilder sb, String[] columns, Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                if(i > 0){
+                    sb.append(',');
+                }
+                if(values[i] != null){
+                    CsvStrings.appendField(sb, values[i].toString());
+                }
+            }
+            sb.append('\n');
+        }
+    },
+
+    // 한 줄에 JSON 객체 하나
+    NDJSON(".ndjson.gz") {
+        @Override
+        void appendHeader(StringBuilder sb, String[] columns) {
+        }
+
+        @Override
+        void appendRow(StringBuilder sb, String[] columns, Object[] values) {
+            sb.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if(i > 0){
+                    sb.append(',');
+                }
+                JsonStrings.appendQuoted(sb, columns[i]);
+                sb.append(':');
+                Object value = values[i];
+                if(value == null || value instanceof Number || value instanceof Boolean){
+                    sb.append(value);
+                }else{
+                    JsonStrings.appendQuoted(sb, value.toString());
+                }
+            }
+            sb.append("}\n");
+        }
+    };
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    abstract void appendHeader(StringBuilder sb, String[] columns);
+
+    abstract void appendRow(StringBuilder sb, String[] columns, Object[] values);
+}
@@ -0,0 +1,91 @@
+package com.lee.springtransaction.export;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 테이블 전체를 일정한 메모리로 파일에 내보낸다.
+ * getResultList()는 모든 행을 영속성 컨텍스트에 올리기 때문에 큰 테이블에서는 힙이 부족해진다.
+ *
+ * - 읽기 전용 트랜잭션 -> flush 하지 않고, replica가 설정되어 있으면 replica에서 읽는다.
+ * - 현재 트랜잭션의 커넥션으로 StatelessSession을 연다. -> 영속성 컨텍스트가 없으므로 조회한 행이 쌓이지 않는다.
+ *   (영속성 컨텍스트가 없으니 주기적으로 detach/clear 할 필요도 없다)
+ * - forward-only 커서를 fetch-size 단위로 읽는다.
+ * - 한 행씩 gzip 스트림에 바로 쓴다. (FileChannel -> GZIPOutputStream -> BufferedWriter)
+ */
+@Slf4j
+@Component
+public class StreamingExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final EntityManager em;
+    private final int fetchSize;
+
+    public StreamingExporter(EntityManager em, @Value("${export.fetch-size:1000}") int fetchSize) {
+        this.em = em;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @param query   컬럼을 select 하는 JPQL (예: select m.id, m.username from Member m order by m.id)
+     * @param columns 컬럼 이름, select 순서와 같아야 한다.
+     * @return 내보낸 행 수
+     */
+    @Transactional(readOnly = true)
+    public long export(String query, String[] columns, Path path, ExportFormat format){
+        Session session = em.unwrap(Session.class);
+        Connection connection = session.doReturningWork(c -> c);
+        long rows = 0;
+        try (StatelessSession statelessSession = session.getSessionFactory().withStatelessOptions()
+                .connection(connection)
+                .openStatelessSession();
+             Writer writer = openWriter(path);
+             ScrollableResults results = statelessSession.createQuery(query)
+                     .setFetchSize(fetchSize)
+                     .setReadOnly(true)
+                     .scroll(ScrollMode.FORWARD_ONLY)) {
+
+            StringBuilder line = new StringBuilder(256);
+            format.appendHeader(line, columns);
+            writer.append(line);
+            while (results.next()){
+                line.setLength(0);
+                format.appendRow(line, columns, results.get());
+                writer.append(line);
+                rows++;
+            }
+        }catch (IOException e){
+            throw new UncheckedIOException("내보내기 실패 path -> " + path, e);
+        }
+        log.info("내보내기 완료 path -> {}, rows -> {}", path, rows);
+        return rows;
+    }
+
+    private static Writer openWriter(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
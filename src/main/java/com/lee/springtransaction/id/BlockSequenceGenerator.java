@@ -0,0 +1,35 @@
+package com.lee.springtransaction.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 엔티티별 시퀀스에서 id 블록을 받아 BlockSequenceOptimizer로 발급하는 생성기
+ * 블록 크기 -> spring.jpa.properties.hibernate.id.block_size (기본 50)
+ *
+ * @GenericGenerator(name = "member_seq", strategy = BlockSequenceGenerator.STRATEGY,
+ *         parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
+ */
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "com.lee.springtransaction.id.BlockSequenceGenerator";
+    public static final String BLOCK_SIZE_SETTING = "hibernate.id.block_size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        int blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_SETTING, settings, DEFAULT_BLOCK_SIZE);
+
+        params.setProperty(INCREMENT_PARAM, String.valueOf(blockSize));
+        params.setProperty(OPT_PARAM, BlockSequenceOptimizer.class.getName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
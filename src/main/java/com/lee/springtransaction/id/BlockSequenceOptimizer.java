@@ -0,0 +1,54 @@
+package com.lee.springtransaction.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+
+/**
+ * IdBlockAllocator를 사용하는 하이버네이트 Optimizer
+ * 하이버네이트 기본 pooled-lo optimizer는 synchronized로 id를 발급한다.
+ * -> 블록 안에서는 lock 없이 발급하고, 블록이 소진되었을 때만 시퀀스를 호출한다.
+ *
+ * OptimizerFactory가 (Class, int) 생성자로 생성한다.
+ */
+public class BlockSequenceOptimizer implements Optimizer {
+
+    private final Class<?> returnClass;
+    private final IdBlockAllocator allocator;
+    private volatile IntegralDataTypeHolder lastSourceValue;
+
+    public BlockSequenceOptimizer(Class<?> returnClass, int incrementSize) {
+        this.returnClass = returnClass;
+        this.allocator = new IdBlockAllocator(incrementSize);
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        long id = allocator.tryNext();
+        if(id == IdBlockAllocator.EXHAUSTED){
+            IntegralDataTypeHolder sourceValue = callback.getNextValue();
+            lastSourceValue = sourceValue;
+            id = allocator.install(sourceValue.makeValue().longValue());
+        }
+        return IdentifierGeneratorHelper.getIntegralDataTypeHolder(returnClass).initialize(id).makeValue();
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return lastSourceValue;
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return allocator.getBlockSize();
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        // 시퀀스를 increment by blockSize 로 생성한다.
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package com.lee.springtransaction.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * DB 시퀀스에서 받아온 id 블록을 메모리에서 lock 없이 나눠준다.
+ * 시퀀스 값 v 하나가 [v, v + blockSize) 범위를 뜻한다. (pooled-lo 방식)
+ *
+ * - 블록 안에서는 AtomicLong 증가만으로 id를 발급하므로 DB 왕복이 없다.
+ * - 블록이 소진되면 호출자가 시퀀스에서 새 블록을 받아 install 한다.
+ *   여러 쓰레드가 동시에 install 하면 나중 블록이 남고 먼저 블록의 나머지는 버려진다. -> id 중복은 없고 빈 번호만 생긴다.
+ * - 블록은 DB 시퀀스가 나눠주므로 여러 애플리케이션 노드가 같은 DB를 사용해도 안전하다.
+ *   단, 모든 노드의 blockSize가 시퀀스의 increment 값과 같아야 한다.
+ */
+public class IdBlockAllocator {
+
+    public static final long EXHAUSTED = Long.MIN_VALUE;
+
+    private final int blockSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+    public IdBlockAllocator(int blockSize) {
+        if(blockSize < 1){
+            throw new IllegalArgumentException("blockSize must be positive -> " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * 현재 블록에서 id를 발급한다.
+     * @return 블록이 소진되었으면 EXHAUSTED
+     */
+    public long tryNext(){
+        return current.get().next();
+    }
+
+    /**
+     * 시퀀스에서 받은 새 블록을 설치하고, 그 블록의 첫 번째 id를 호출자에게 발급한다.
+     */
+    public long install(long blockStart){
+        Block block = new Block(blockStart, blockStart + blockSize);
+        long id = block.next();
+        current.set(block);
+        return id;
+    }
+
+    public int getBlockSize(){
+        return blockSize;
+    }
+
+    private static final class Block {
+
+        private final AtomicLong cursor;
+        private final long limit;
+
+        private Block(long start, long limit) {
+            this.cursor = new AtomicLong(start);
+            this.limit = limit;
+        }
+
+        private long next(){
+            long id = cursor.getAndIncrement();
+            return id < limit ? id : EXHAUSTED;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.lee.springtransaction.id;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JPA를 거치지 않고 JDBC로 insert 할 때 BlockSequenceGenerator와 같은 시퀀스, 같은 블록 규칙으로 id를 발급한다.
+ * blockSize는 하이버네이트 설정(hibernate.id.block_size)과 같아야 한다.
+ */
+public class JdbcSequenceIds {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final IdBlockAllocator allocator;
+
+    public JdbcSequenceIds(JdbcTemplate jdbcTemplate, String sequenceName, int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = "select next value for " + sequenceName;
+        this.allocator = new IdBlockAllocator(blockSize);
+    }
+
+    public long next(){
+        long id = allocator.tryNext();
+        if(id == IdBlockAllocator.EXHAUSTED){
+            Long blockStart = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+            id = allocator.install(blockStart);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,163 @@
+package com.lee.springtransaction.jpa;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 트랜잭션마다 영속성 컨텍스트가 관리하는 엔티티 수를 추적하고, 임계치를 넘으면 flush/clear 한다.
+ * 한 트랜잭션에서 엔티티를 계속 저장하면 1차 캐시와 스냅샷이 계속 커지고, 커밋 시 dirty checking 도 관리 엔티티 수만큼 걸린다.
+ *
+ * - 레포지토리 메서드(@Repository 클래스, 스프링 데이터 레포지토리)가 끝날 때마다 관리 엔티티 수를 확인한다. (getNumberOfManagedEntities -> O(1))
+ *   flush-clear-threshold 이상이면 flush 하고 영속성 컨텍스트를 비운다.
+ *   -> 호출한 쪽이 가지고 있던 엔티티는 준영속이 된다. 이후 변경은 반영되지 않으므로, 필요하면 다시 조회해야 한다.
+ * - 커밋 직전에 관리 엔티티 수와 추정 메모리(estimateBytes)를 한 번 더 확인한다.
+ * - 트랜잭션이 끝나면 트랜잭션 이름(가장 바깥 @Transactional 메서드)별로 최대 사용량을 집계한다. (PersistenceContextStats)
+ */
+@Slf4j
+public class PersistenceContextGovernor implements MethodInterceptor {
+
+    // 추정 메모리 -> EntityEntry, EntityKey, 1차 캐시 map 항목 + 속성당 필드/스냅샷 슬롯
+    static final int ENTRY_BYTES = 160;
+    static final int SLOT_BYTES = 16;
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final int flushClearThreshold;
+    private final ConcurrentMap<String, PersistenceContextStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * @param flushClearThreshold 0 이하이면 flush/clear 하지 않고 집계만 한다.
+     */
+    public PersistenceContextGovernor(ObjectProvider<EntityManagerFactory> entityManagerFactory, int flushClearThreshold) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.flushClearThreshold = flushClearThreshold;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if(TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()){
+            TransactionState state = currentState();
+            if(state != null){
+                state.check();
+            }
+        }
+        return result;
+    }
+
+    public PersistenceContextStats stats(String name){
+        return stats.computeIfAbsent(name, PersistenceContextStats::new);
+    }
+
+    public Collection<PersistenceContextStats> getAll(){
+        List<PersistenceContextStats> all = new ArrayList<>(stats.values());
+        return Collections.unmodifiableList(all);
+    }
+
+    /**
+     * 관리 엔티티의 대략적인 메모리 사용량 -> O(n) 이므로 커밋 직전과 flush/clear 직전에만 계산한다.
+     * 속성 값 자체(문자열 등)는 엔티티와 스냅샷이 공유하므로 포함하지 않는다.
+     */
+    static long estimateBytes(PersistenceContext persistenceContext){
+        long bytes = 0;
+        for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries()) {
+            EntityEntry entityEntry = entry.getValue();
+            Object[] loadedState = entityEntry.getLoadedState();
+            int properties = entityEntry.getPersister().getPropertyTypes().length;
+            // 읽기 전용 엔티티는 스냅샷(loadedState)이 없다.
+            int slots = loadedState == null ? properties : properties + loadedState.length;
+            bytes += ENTRY_BYTES + (long) slots * SLOT_BYTES;
+        }
+        return bytes;
+    }
+
+    // 현재 트랜잭션의 EntityManager가 있으면 트랜잭션별 상태를 등록한다.
+    private TransactionState currentState(){
+        TransactionState state = (TransactionState) TransactionSynchronizationManager.getResource(this);
+        if(state != null){
+            return state;
+        }
+        EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+        EntityManagerHolder holder = emf == null ? null
+                : (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if(holder == null){
+            return null;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        state = new TransactionState(name == null ? "unnamed" : name, holder.getEntityManager());
+        TransactionSynchronizationManager.bindResource(this, state);
+        TransactionSynchronizationManager.registerSynchronization(state);
+        return state;
+    }
+
+    private final class TransactionState implements TransactionSynchronization {
+
+        private final String name;
+        private final EntityManager entityManager;
+        private final SessionImplementor session;
+        private int peakEntities;
+        private long peakEstimatedBytes;
+        private int flushClears;
+
+        private TransactionState(String name, EntityManager entityManager) {
+            this.name = name;
+            this.entityManager = entityManager;
+            this.session = entityManager.unwrap(SessionImplementor.class);
+        }
+
+        private void check(){
+            PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+            int entities = persistenceContext.getNumberOfManagedEntities();
+            peakEntities = Math.max(peakEntities, entities);
+            if(flushClearThreshold > 0 && entities >= flushClearThreshold){
+                peakEstimatedBytes = Math.max(peakEstimatedBytes, estimateBytes(persistenceContext));
+                log.info("영속성 컨텍스트 flush/clear tx -> {}, entities -> {}", name, entities);
+                entityManager.flush();
+                entityManager.clear();
+                flushClears++;
+            }
+        }
+
+        @Override
+        public void suspend() {
+            // REQUIRES_NEW -> 신규 트랜잭션은 자신의 상태를 따로 등록한다.
+            TransactionSynchronizationManager.unbindResource(PersistenceContextGovernor.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(PersistenceContextGovernor.this, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+            peakEntities = Math.max(peakEntities, persistenceContext.getNumberOfManagedEntities());
+            peakEstimatedBytes = Math.max(peakEstimatedBytes, estimateBytes(persistenceContext));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PersistenceContextGovernor.this);
+            stats(name).record(peakEntities, peakEstimatedBytes, flushClears);
+        }
+    }
+}
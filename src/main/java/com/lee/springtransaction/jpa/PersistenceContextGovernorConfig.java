@@ -0,0 +1,51 @@
+package com.lee.springtransaction.jpa;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * PersistenceContextGovernor advisor 등록 (@Repository 클래스와 스프링 데이터 레포지토리의 메서드)
+ * - 스프링 데이터 레포지토리(OrderRepository 등)는 @Repository 가 없는 인터페이스의 JDK 프록시이므로
+ *   AnnotationMatchingPointcut 만으로는 적용되지 않는다. -> org.springframework.data.repository.Repository 구현 타입도 포함한다.
+ * - HIGHEST_PRECEDENCE + 1 -> 재시도 advisor 안쪽, 트랜잭션 인터셉터 바깥에서 실행
+ *   -> 레포지토리 메서드가 참여한 외부 트랜잭션의 영속성 컨텍스트를 확인한다.
+ * transaction.persistence-context.enabled=true 일 때 적용한다.
+ * flush-clear-threshold 기본값은 0 -> 집계만 하고 flush/clear 하지 않는다.
+ *   flush/clear 하면 호출한 쪽의 엔티티가 준영속이 되므로, 임계치는 대량 처리 흐름을 확인한 다음 직접 켠다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "transaction.persistence-context.enabled", havingValue = "true")
+public class PersistenceContextGovernorConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static PersistenceContextGovernor persistenceContextGovernor(
+            ObjectProvider<EntityManagerFactory> entityManagerFactory,
+            @Value("${transaction.persistence-context.flush-clear-threshold:0}") int flushClearThreshold){
+        return new PersistenceContextGovernor(entityManagerFactory, flushClearThreshold);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor persistenceContextGovernorAdvisor(PersistenceContextGovernor persistenceContextGovernor){
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(Repository.class, true))
+                .union(new RootClassFilter(org.springframework.data.repository.Repository.class));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, persistenceContextGovernor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return advisor;
+    }
+}
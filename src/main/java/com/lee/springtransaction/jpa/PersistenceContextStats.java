@@ -0,0 +1,57 @@
+package com.lee.springtransaction.jpa;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 트랜잭션(@Transactional 메서드)별 영속성 컨텍스트 사용량 집계
+ * - transactions : 엔티티를 관리한 트랜잭션 수
+ * - peakEntities : 한 트랜잭션의 최대 관리 엔티티 수
+ * - peakEstimatedBytes : 한 트랜잭션의 최대 추정 메모리 (엔티티 + 스냅샷, PersistenceContextGovernor.estimateBytes)
+ * - flushClears : 임계치를 넘어서 자동으로 flush/clear 한 횟수
+ */
+public class PersistenceContextStats {
+
+    private final String name;
+    private final LongAdder transactions = new LongAdder();
+    private final LongAccumulator peakEntities = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator peakEstimatedBytes = new LongAccumulator(Math::max, 0);
+    private final LongAdder flushClears = new LongAdder();
+
+    public PersistenceContextStats(String name) {
+        this.name = name;
+    }
+
+    void record(int entities, long estimatedBytes, int flushClearCount){
+        transactions.increment();
+        peakEntities.accumulate(entities);
+        peakEstimatedBytes.accumulate(estimatedBytes);
+        flushClears.add(flushClearCount);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTransactions() {
+        return transactions.sum();
+    }
+
+    public long getPeakEntities() {
+        return peakEntities.get();
+    }
+
+    public long getPeakEstimatedBytes() {
+        return peakEstimatedBytes.get();
+    }
+
+    public long getFlushClears() {
+        return flushClears.sum();
+    }
+
+    @Override
+    public String toString() {
+        return name + " [tx=" + getTransactions() + ", peakEntities=" + getPeakEntities()
+                + ", peakEstimatedBytes=" + getPeakEstimatedBytes() + ", flushClears=" + getFlushClears() + "]";
+    }
+}
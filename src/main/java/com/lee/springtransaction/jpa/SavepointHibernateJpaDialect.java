@@ -0,0 +1,102 @@
+package com.lee.springtransaction.jpa;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.NestedTransactionNotSupportedException;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * JpaTransactionManager에서 NESTED 전파를 사용할 수 있도록 JDBC savepoint를 제공하는 HibernateJpaDialect
+ * 기본 HibernateJpaDialect는 savepoint를 지원하지 않아서 NESTED -> NestedTransactionNotSupportedException
+ *
+ * - savepoint 생성 : 영속성 컨텍스트를 flush 한 다음 같은 커넥션에 savepoint를 만든다.
+ *   -> savepoint 이전의 변경은 DB에 반영되어 있으므로 savepoint로 롤백해도 유지된다.
+ * - savepoint 롤백 : 영속성 컨텍스트를 비워서 아직 flush 하지 않은 변경(action queue)을 버리고 savepoint로 롤백한다.
+ *   -> savepoint 이후에 영속화/변경된 엔티티가 커밋 시점에 다시 반영되지 않는다.
+ *      외부 트랜잭션에서 조회한 엔티티도 준영속이 되므로, 롤백 이후에 필요하면 다시 조회해야 한다.
+ */
+public class SavepointHibernateJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        return new SavepointTransactionData(entityManager.unwrap(SessionImplementor.class), transactionData);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if(transactionData instanceof SavepointTransactionData){
+            transactionData = ((SavepointTransactionData) transactionData).delegate;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    static final class SavepointTransactionData implements SavepointManager {
+
+        private final SessionImplementor session;
+        private final Object delegate;
+
+        SavepointTransactionData(SessionImplementor session, Object delegate) {
+            this.session = session;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            try {
+                session.flush();
+                Connection connection = session.connection();
+                if(!connection.getMetaData().supportsSavepoints()){
+                    throw new NestedTransactionNotSupportedException("JDBC 드라이버가 savepoint를 지원하지 않습니다.");
+                }
+                return new SavepointHolder(connection, connection.setSavepoint());
+            }catch (SQLException e){
+                throw new CannotCreateTransactionException("savepoint를 생성할 수 없습니다.", e);
+            }
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            SavepointHolder holder = (SavepointHolder) savepoint;
+            try {
+                // flush 전에 비워서 savepoint 이후의 변경이 DB에 반영되지 않도록 한다. (action queue 포함)
+                session.clear();
+                holder.connection.rollback(holder.savepoint);
+            }catch (SQLException e){
+                throw new TransactionSystemException("savepoint로 롤백할 수 없습니다.", e);
+            }
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            SavepointHolder holder = (SavepointHolder) savepoint;
+            try {
+                holder.connection.releaseSavepoint(holder.savepoint);
+            }catch (SQLException e){
+                // 트랜잭션이 끝나면 함께 해제되므로 실패해도 무시한다. (DataSourceTransactionManager와 같은 처리)
+            }
+        }
+    }
+
+    private static final class SavepointHolder {
+
+        private final Connection connection;
+        private final Savepoint savepoint;
+
+        private SavepointHolder(Connection connection, Savepoint savepoint) {
+            this.connection = connection;
+            this.savepoint = savepoint;
+        }
+    }
+}
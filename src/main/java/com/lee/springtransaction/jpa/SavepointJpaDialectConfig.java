@@ -0,0 +1,31 @@
+package com.lee.springtransaction.jpa;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+/**
+ * 스프링 부트가 등록한 EntityManagerFactory가 SavepointHibernateJpaDialect를 사용하도록 초기화 전에 설정한다.
+ * JpaTransactionManager는 EntityManagerFactory의 JpaDialect를 사용한다.
+ * transaction.jpa-savepoint.enabled=true 일 때 적용한다. (false -> JpaTransactionManager에서 NESTED 사용 불가)
+ */
+@Configuration
+@ConditionalOnProperty(name = "transaction.jpa-savepoint.enabled", havingValue = "true")
+public class SavepointJpaDialectConfig {
+
+    @Bean
+    public static BeanPostProcessor savepointJpaDialectPostProcessor(){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if(bean instanceof AbstractEntityManagerFactoryBean){
+                    ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new SavepointHibernateJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.lee.springtransaction.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 2의 거듭제곱 구간(나노초)으로 나눈 고정 크기 히스토그램
+ * 기록할 때 객체를 생성하지 않는다. 백분위는 구간의 상한값으로 근사한다.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos){
+        long value = Math.max(nanos, 0);
+        int bucket = Math.min(BUCKETS - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(value);
+    }
+
+    public long getCount(){
+        return count.sum();
+    }
+
+    public long getTotalNanos(){
+        return totalNanos.sum();
+    }
+
+    /**
+     * @param percentile 0.0 ~ 1.0 (예: 0.99)
+     * @return 해당 백분위가 속한 구간의 상한값(나노초), 기록이 없으면 0
+     */
+    public long getPercentileNanos(double percentile){
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if(total == 0){
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if(seen >= rank){
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
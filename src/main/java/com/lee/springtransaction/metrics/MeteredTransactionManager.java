@@ -0,0 +1,141 @@
+package com.lee.springtransaction.metrics;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+
+/**
+ * PlatformTransactionManager 데코레이터
+ * 시작/커밋/롤백 횟수, 트랜잭션 수행 시간, REQUIRES_NEW 보류/재개, UnexpectedRollbackException 발생을
+ * 트랜잭션 이름(@Transactional 메서드 이름)별로 집계한다.
+ *
+ * 시작 시각은 쓰레드별로 미리 할당한 배열 스택에 담는다. -> 호출마다 객체를 생성하지 않는다.
+ * 트랜잭션 매니저 사용 규칙대로 나중에 시작한 트랜잭션이 먼저 끝난다고(LIFO) 가정한다.
+ */
+public class MeteredTransactionManager implements PlatformTransactionManager {
+
+    private static final ThreadLocal<Frames> FRAMES = ThreadLocal.withInitial(Frames::new);
+
+    private final PlatformTransactionManager delegate;
+    private final TransactionMetrics metrics;
+
+    public MeteredTransactionManager(PlatformTransactionManager delegate, TransactionMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionStats stats = metrics.stats(definition != null ? definition.getName() : null);
+        boolean suspending = isSuspending(definition);
+
+        long start = System.nanoTime();
+        TransactionStatus status = delegate.getTransaction(definition);
+        stats.begin(status.isNewTransaction(), suspending);
+        FRAMES.get().push(stats, start, suspending);
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        Frames frames = FRAMES.get();
+        int frame = frames.peek();
+        boolean rollbackOnly = status.isRollbackOnly();
+        try {
+            delegate.commit(status);
+            if(frame >= 0){
+                if(rollbackOnly){
+                    frames.stats[frame].rollback();
+                }else{
+                    frames.stats[frame].commit();
+                }
+            }
+        }catch (UnexpectedRollbackException e){
+            if(frame >= 0){
+                frames.stats[frame].unexpectedRollback();
+                frames.stats[frame].rollback();
+            }
+            throw e;
+        }catch (RuntimeException | Error e){
+            if(frame >= 0){
+                frames.stats[frame].rollback();
+            }
+            throw e;
+        }finally {
+            complete(frames, frame);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        Frames frames = FRAMES.get();
+        int frame = frames.peek();
+        try {
+            delegate.rollback(status);
+        }finally {
+            if(frame >= 0){
+                frames.stats[frame].rollback();
+            }
+            complete(frames, frame);
+        }
+    }
+
+    // 커밋/롤백 중에 실행되는 동기화 콜백이 새 트랜잭션을 시작할 수 있으므로, 끝난 다음에 스택에서 꺼낸다.
+    private void complete(Frames frames, int frame){
+        if(frame < 0){
+            return;
+        }
+        frames.stats[frame].complete(System.nanoTime() - frames.starts[frame], frames.suspending[frame]);
+        frames.pop(frame);
+    }
+
+    private boolean isSuspending(TransactionDefinition definition){
+        if(!TransactionSynchronizationManager.isActualTransactionActive()){
+            return false;
+        }
+        int propagation = definition != null ? definition.getPropagationBehavior() : TransactionDefinition.PROPAGATION_REQUIRED;
+        return propagation == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                || propagation == TransactionDefinition.PROPAGATION_NOT_SUPPORTED;
+    }
+
+    private static final class Frames {
+
+        private TransactionStats[] stats = new TransactionStats[8];
+        private long[] starts = new long[8];
+        private boolean[] suspending = new boolean[8];
+        private int depth;
+
+        private void push(TransactionStats transactionStats, long start, boolean suspend){
+            if(depth == stats.length){
+                int size = depth * 2;
+                stats = Arrays.copyOf(stats, size);
+                starts = Arrays.copyOf(starts, size);
+                suspending = Arrays.copyOf(suspending, size);
+            }
+            stats[depth] = transactionStats;
+            starts[depth] = start;
+            suspending[depth] = suspend;
+            depth++;
+        }
+
+        // 맨 위 자리의 index, 비어 있으면 -1
+        private int peek(){
+            return depth - 1;
+        }
+
+        private void pop(int frame){
+            // 다 쓴 자리의 참조를 지운다.
+            stats[frame] = null;
+            depth = frame;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.lee.springtransaction.metrics;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * 스프링 빈으로 등록된 모든 PlatformTransactionManager를 MeteredTransactionManager로 감싼다.
+ */
+public class MeteredTransactionManagerPostProcessor implements BeanPostProcessor {
+
+    private final TransactionMetrics metrics;
+
+    public MeteredTransactionManagerPostProcessor(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if(bean instanceof PlatformTransactionManager && !(bean instanceof MeteredTransactionManager)){
+            return new MeteredTransactionManager((PlatformTransactionManager) bean, metrics);
+        }
+        return bean;
+    }
+}
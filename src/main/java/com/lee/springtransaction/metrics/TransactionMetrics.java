@@ -0,0 +1,31 @@
+package com.lee.springtransaction.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 트랜잭션 이름별 TransactionStats 저장소
+ * 이름이 없는 트랜잭션(TransactionTemplate, 직접 getTransaction 호출 등)은 UNNAMED로 집계한다.
+ */
+public class TransactionMetrics {
+
+    public static final String UNNAMED = "unnamed";
+
+    private final ConcurrentMap<String, TransactionStats> stats = new ConcurrentHashMap<>();
+
+    public TransactionStats stats(String name){
+        String key = name != null ? name : UNNAMED;
+        // 이미 등록된 이름은 get 만으로 찾는다. -> 호출마다 객체를 생성하지 않는다.
+        TransactionStats found = stats.get(key);
+        if(found != null){
+            return found;
+        }
+        return stats.computeIfAbsent(key, TransactionStats::new);
+    }
+
+    public Collection<TransactionStats> getAll(){
+        return Collections.unmodifiableCollection(stats.values());
+    }
+}
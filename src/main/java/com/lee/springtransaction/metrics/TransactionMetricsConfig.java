@@ -0,0 +1,23 @@
+package com.lee.springtransaction.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * transaction.metrics.enabled=false 로 끌 수 있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "transaction.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionMetricsConfig {
+
+    @Bean
+    public static TransactionMetrics transactionMetrics(){
+        return new TransactionMetrics();
+    }
+
+    @Bean
+    public static MeteredTransactionManagerPostProcessor meteredTransactionManagerPostProcessor(TransactionMetrics transactionMetrics){
+        return new MeteredTransactionManagerPostProcessor(transactionMetrics);
+    }
+}
@@ -0,0 +1,102 @@
+package com.lee.springtransaction.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 트랜잭션 이름(@Transactional 메서드 이름) 하나에 대한 집계
+ * - begin / physicalBegin : 논리 트랜잭션 시작 / 그중 신규 물리 트랜잭션 시작
+ * - commit / rollback : 커밋 요청이 rollbackOnly 때문에 롤백되면 rollback으로 센다.
+ * - suspend / resume : REQUIRES_NEW, NOT_SUPPORTED로 기존 트랜잭션을 보류/재개한 횟수
+ * - unexpectedRollback : rollbackOnly 상태에서 커밋하여 UnexpectedRollbackException이 발생한 횟수
+ */
+public class TransactionStats {
+
+    private final String name;
+
+    private final LongAdder begins = new LongAdder();
+    private final LongAdder physicalBegins = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder rollbacks = new LongAdder();
+    private final LongAdder suspends = new LongAdder();
+    private final LongAdder resumes = new LongAdder();
+    private final LongAdder unexpectedRollbacks = new LongAdder();
+    private final LatencyHistogram duration = new LatencyHistogram();
+
+    public TransactionStats(String name) {
+        this.name = name;
+    }
+
+    void begin(boolean newTransaction, boolean suspending){
+        begins.increment();
+        if(newTransaction){
+            physicalBegins.increment();
+        }
+        if(suspending){
+            suspends.increment();
+        }
+    }
+
+    void commit(){
+        commits.increment();
+    }
+
+    void rollback(){
+        rollbacks.increment();
+    }
+
+    void unexpectedRollback(){
+        unexpectedRollbacks.increment();
+    }
+
+    void complete(long nanos, boolean resuming){
+        duration.record(nanos);
+        if(resuming){
+            resumes.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getBegins() {
+        return begins.sum();
+    }
+
+    public long getPhysicalBegins() {
+        return physicalBegins.sum();
+    }
+
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    public long getRollbacks() {
+        return rollbacks.sum();
+    }
+
+    public long getSuspends() {
+        return suspends.sum();
+    }
+
+    public long getResumes() {
+        return resumes.sum();
+    }
+
+    public long getUnexpectedRollbacks() {
+        return unexpectedRollbacks.sum();
+    }
+
+    public LatencyHistogram getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [begin=" + getBegins() + ", physicalBegin=" + getPhysicalBegins()
+                + ", commit=" + getCommits() + ", rollback=" + getRollbacks()
+                + ", suspend=" + getSuspends() + ", resume=" + getResumes()
+                + ", unexpectedRollback=" + getUnexpectedRollbacks()
+                + ", p99(ns)=" + duration.getPercentileNanos(0.99) + "]";
+    }
+}
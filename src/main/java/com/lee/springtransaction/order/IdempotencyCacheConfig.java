@@ -0,0 +1,26 @@
+package com.lee.springtransaction.order;
+
+import com.lee.springtransaction.cache.LookupCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IdempotentOrderService 최근 멱등 키 캐시 (idempotencyKey -> payStatus)
+ */
+@Configuration
+public class IdempotencyCacheConfig {
+
+    @Value("${order.idempotency.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${order.idempotency.cache.ttl-ms:600000}")
+    private long ttlMillis;
+
+    @Bean
+    public LookupCache<String, String> orderIdempotencyCache(){
+        return new LookupCache<>(maxSize, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,91 @@
+package com.lee.springtransaction.order;
+
+import com.lee.springtransaction.cache.LookupCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 멱등 키(Order.idempotencyKey)로 클라이언트 재시도에 의한 중복 주문을 막는다.
+ * - 이미 저장된 키 -> 주문을 다시 저장하지 않고(결제 로직도 실행하지 않고) 저장된 payStatus를 반환한다.
+ * - 최근 키는 LookupCache(LRU + TTL)에서 먼저 확인한다. -> 재시도가 몰려도 대부분 DB까지 가지 않는다.
+ *   캐시에 없으면 uk_orders_idempotency_key 인덱스로 조회한다.
+ * - 처음 보는 키는 OrderService.order()가 결제 전에 주문을 insert(flush) 해서 선점한다.
+ *   동시에 같은 키로 들어온 주문은 먼저 insert 한 트랜잭션이 끝날 때까지 기다린 다음 유니크 인덱스 위반으로 실패한다.
+ *   -> 결제 로직은 한 번만 실행되고, 실패한 쪽은 먼저 커밋된 주문의 payStatus를 반환한다.
+ * - 입금 확인(OrderService.completePayment)으로 '완료'가 되면 커밋 후 캐시도 '완료'로 바뀐다.
+ * - 시스템 예외로 롤백된 주문은 저장되지 않았으므로 재시도하면 다시 실행한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotentOrderService {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final LookupCache<String, String> orderIdempotencyCache;
+
+    private final AtomicLong replays = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    /**
+     * 처음 들어온 주문은 OrderService.order()와 같다. (잔고 부족 -> '대기' 저장 후 NotEnoughMoneyException)
+     * 재시도된 주문은 예외 없이 저장된 payStatus를 반환한다.
+     * @return 주문의 payStatus
+     */
+    public String order(Order order) throws NotEnoughMoneyException {
+        String idempotencyKey = order.getIdempotencyKey();
+        if(idempotencyKey == null){
+            orderService.order(order);
+            return order.getPayStatus();
+        }
+
+        Optional<String> stored = findPayStatus(idempotencyKey);
+        if(stored.isPresent()){
+            replays.incrementAndGet();
+            log.info("중복 주문 idempotencyKey -> {}, payStatus -> {}", idempotencyKey, stored.get());
+            return stored.get();
+        }
+
+        try {
+            orderService.order(order);
+        }catch (NotEnoughMoneyException e){
+            // '대기' 상태로 커밋되었다.
+            orderIdempotencyCache.putAfterCommit(idempotencyKey, order.getPayStatus());
+            throw e;
+        }catch (RuntimeException e){
+            // 유니크 인덱스 위반인지는 예외 타입 대신 키가 저장되어 있는지로 판단한다. (H2 락 대기 시간 초과 후 재시도 등 예외 경로가 여러 가지)
+            Optional<String> winner = orderRepository.findPayStatusByIdempotencyKey(idempotencyKey);
+            if(winner.isEmpty()){
+                throw e;
+            }
+            conflicts.incrementAndGet();
+            log.info("동시 중복 주문 idempotencyKey -> {}, payStatus -> {}", idempotencyKey, winner.get());
+            orderIdempotencyCache.putAfterCommit(idempotencyKey, winner.get());
+            return winner.get();
+        }
+        orderIdempotencyCache.putAfterCommit(idempotencyKey, order.getPayStatus());
+        return order.getPayStatus();
+    }
+
+    // 재시도로 반환한 수 (캐시 또는 DB 조회)
+    public long getReplays() {
+        return replays.get();
+    }
+
+    // 동시에 같은 키로 저장하다가 유니크 인덱스 위반으로 실패한 수
+    public long getConflicts() {
+        return conflicts.get();
+    }
+
+    // 쓰기 트랜잭션 안에서 호출되면 캐시를 사용하지 않는다. (LookupCache.isReadPath)
+    private Optional<String> findPayStatus(String idempotencyKey){
+        if(!LookupCache.isReadPath()){
+            return orderRepository.findPayStatusByIdempotencyKey(idempotencyKey);
+        }
+        return orderIdempotencyCache.get(idempotencyKey, orderRepository::findPayStatusByIdempotencyKey);
+    }
+}
@@ -1,23 +1,40 @@
 package com.lee.springtransaction.order;
 
+import com.lee.springtransaction.id.BlockSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "uk_orders_idempotency_key", columnList = "idempotencyKey", unique = true))
+@DynamicUpdate
 @Getter
 @Setter
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "orders_seq")
+    @GenericGenerator(name = "orders_seq", strategy = BlockSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "orders_seq"))
     private Long id;
 
     private String username;
     private String payStatus;
+
+    // 클라이언트가 재시도해도 같은 값을 보낸다. 같은 키의 주문은 한 건만 저장된다. (IdempotentOrderService)
+    private String idempotencyKey;
+
+    // 동시에 같은 주문을 수정하면 나중에 커밋하는 쪽이 OptimisticLockException으로 실패한다.
+    @Version
+    private Long version;
 }
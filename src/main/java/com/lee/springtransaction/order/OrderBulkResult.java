@@ -0,0 +1,35 @@
+package com.lee.springtransaction.order;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * OrderService.orderAll() 처리 결과
+ * completed -> 정상 승인, waiting -> 잔고 부족으로 '대기' 저장, failed -> 시스템 예외 등으로 저장하지 않은 주문
+ */
+@Getter
+public class OrderBulkResult {
+
+    private int completed;
+    private int waiting;
+    private final List<Order> failed = new ArrayList<>();
+
+    public List<Order> getFailed() {
+        return Collections.unmodifiableList(failed);
+    }
+
+    void addCompleted(){
+        completed++;
+    }
+
+    void addWaiting(){
+        waiting++;
+    }
+
+    void addFailed(Order order){
+        failed.add(order);
+    }
+}
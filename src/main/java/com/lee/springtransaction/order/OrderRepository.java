@@ -1,6 +1,29 @@
 package com.lee.springtransaction.order;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    /**
+     * 엔티티를 조회하지 않고 update 한 번으로 상태를 변경한다. (compare-and-set)
+     * 현재 상태가 expected 일 때만 변경하고 version을 올린다. -> 동시에 호출되어도 한 쪽만 성공한다.
+     * 영속성 컨텍스트를 거치지 않으므로 실행 전에 flush 한다. 이미 조회한 Order 엔티티는 갱신되지 않는다.
+     * @return 변경된 행 수 (0 -> 주문이 없거나 상태가 expected가 아님)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.payStatus = :next, o.version = o.version + 1 where o.id = :id and o.payStatus = :expected")
+    int transitionPayStatus(@Param("id") Long id, @Param("expected") String expected, @Param("next") String next);
+
+    // uk_orders_idempotency_key 인덱스로 결제 상태만 조회한다.
+    @Query("select o.payStatus from Order o where o.idempotencyKey = :idempotencyKey")
+    Optional<String> findPayStatusByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
+
+    // 멱등 키 없이 저장된 주문이면 empty
+    @Query("select o.idempotencyKey from Order o where o.id = :id")
+    Optional<String> findIdempotencyKeyById(@Param("id") Long id);
 }
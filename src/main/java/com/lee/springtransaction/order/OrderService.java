@@ -1,9 +1,21 @@
 package com.lee.springtransaction.order;
 
+import com.lee.springtransaction.cache.LookupCache;
+import com.lee.springtransaction.outbox.OrderOutbox;
+import com.lee.springtransaction.retry.TransientRetry;
+import com.lee.springtransaction.retry.TransientRetryInterceptor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -11,26 +23,202 @@ import org.springframework.transaction.annotation.Transactional;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final OrderOutbox orderOutbox;
+    private final LookupCache<String, String> orderIdempotencyCache;
+
+    @Value("${order.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
 
     // JPA는 트랜잭션 커밋 시점에 Order 데이터를 DB에 반영한다.
+    // 결제 결과 이벤트도 같은 트랜잭션에서 outbox에 기록한다. (시스템 예외는 롤백되므로 기록하지 않는다)
+    // 교착상태/락 대기 시간 초과 등 일시적 실패는 새 트랜잭션으로 다시 실행한다. (잔고 부족은 재시도하지 않는다)
+    // 재시도는 같은 Order 객체로 실행된다. -> 롤백된 이전 시도가 발급한 id, version(DB에 없는 id)만 비우고 새 주문으로 저장한다.
+    //   처음 실행할 때와 이미 저장된 주문(id가 DB에 있음)은 그대로 save(merge) 한다.
+    // 트랜잭션 안에는 저장, 결제 판단(저장할 payStatus를 정한다), outbox 기록(주문과 함께 커밋되어야 한다)만 남긴다.
+    // 커밋 이후에 해도 되는 relay 깨우기는 OrderOutbox가 AfterCommitExecutor로 넘긴다.
+    @TransientRetry
     @Transactional
     public void order(Order order) throws NotEnoughMoneyException{
         log.info("call order");
-        orderRepository.save(order);
+        if(TransientRetryInterceptor.currentAttempt() > 1 && order.getId() != null
+                && !orderRepository.existsById(order.getId())){
+            discardIdentity(order);
+        }
+        // 새 주문은 인자 객체 그대로, 저장된 주문은 merge 된 영속 객체로 결제 결과를 반영한다.
+        Order saved = orderRepository.save(order);
+        if(saved.getIdempotencyKey() != null){
+            // 결제 전에 insert 해서 멱등 키를 선점한다. -> 같은 키의 동시 주문은 결제하지 않고 유니크 인덱스에서 실패한다.
+            orderRepository.flush();
+        }
+        try {
+            pay(saved);
+        }catch (NotEnoughMoneyException e){
+            orderOutbox.payResult(saved);
+            throw e;
+        }
+        orderOutbox.payResult(saved);
+    }
+
+    /**
+     * 입금 확인 콜백 -> '대기' 주문을 '완료'로 변경한다.
+     * 주문을 조회하지 않고 조건부 update 한 번으로 처리한다. 같은 콜백이 동시에/중복으로 와도 한 번만 변경된다.
+     * 멱등 키가 있는 주문은 커밋 후 멱등 키 캐시도 '완료'로 바꾼다. -> 재시도된 주문이 '대기'를 반환하지 않는다.
+     * @return 변경했으면 true, 주문이 없거나 이미 '대기'가 아니면 false
+     */
+    @Transactional
+    public boolean completePayment(Long orderId){
+        if(orderRepository.transitionPayStatus(orderId, "대기", "완료") == 0){
+            log.info("결제 완료 처리 대상 아님 orderId -> {}", orderId);
+            return false;
+        }
+        orderOutbox.payCompleted(orderId);
+        orderRepository.findIdempotencyKeyById(orderId)
+                .ifPresent(idempotencyKey -> orderIdempotencyCache.putAfterCommit(idempotencyKey, "완료"));
+        return true;
+    }
+
+    /**
+     * 대량 주문 처리
+     * - chunk-size 건을 하나의 트랜잭션으로 처리한다.
+     * - jdbc batch_size 마다 flush/clear 해서 insert를 배치로 보내고 영속성 컨텍스트를 작게 유지한다.
+     * - 결제 판단은 DB를 사용하지 않으므로 저장하기 전에 먼저 수행한다. -> order()와 같은 결과를 주문 단위로 적용
+     *   시스템 예외(RuntimeException) -> 해당 주문만 저장하지 않는다.(롤백)
+     *   잔고 부족(NotEnoughMoneyException) -> 해당 주문만 '대기' 상태로 저장한다.(커밋)
+     * - chunk 트랜잭션 자체가 실패하면(DB 제약조건 위반 등) 그 chunk만 한 건씩 다시 저장한다.
+     *   결제 판단은 다시 하지 않고 처음 결과를 사용한다.
+     */
+    public OrderBulkResult orderAll(Collection<Order> orders){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        OrderBulkResult result = new OrderBulkResult();
+
+        List<Order> chunk = new ArrayList<>(chunkSize);
+        for (Order order : orders) {
+            chunk.add(order);
+            if(chunk.size() == chunkSize){
+                orderChunk(transactionTemplate, chunk, result);
+                chunk.clear();
+            }
+        }
+        if(!chunk.isEmpty()){
+            orderChunk(transactionTemplate, chunk, result);
+        }
+        log.info("대량 주문 완료 completed -> {}, waiting -> {}, failed -> {}",
+                result.getCompleted(), result.getWaiting(), result.getFailed().size());
+        return result;
+    }
+
+    private void orderChunk(TransactionTemplate transactionTemplate, List<Order> chunk, OrderBulkResult result){
+        // 결제 판단은 주문마다 한 번만 한다. chunk가 실패해서 다시 저장할 때도 이 결과를 그대로 사용한다.
+        List<PaidOrder> paid = new ArrayList<>(chunk.size());
+        for (Order order : chunk) {
+            try {
+                pay(order, true);
+                paid.add(new PaidOrder(order, false));
+            }catch (NotEnoughMoneyException e){
+                paid.add(new PaidOrder(order, true));
+            }catch (RuntimeException e){
+                result.addFailed(order);
+            }
+        }
+        if(paid.isEmpty()){
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveChunk(paid));
+            for (PaidOrder paidOrder : paid) {
+                paidOrder.addTo(result);
+            }
+        }catch (RuntimeException e){
+            log.warn("주문 chunk 저장 실패, 한 건씩 다시 저장 size -> {}", paid.size(), e);
+            for (PaidOrder paidOrder : paid) {
+                orderOne(transactionTemplate, paidOrder, result);
+            }
+        }
+    }
 
-        log.info("call 결제 프로세스");
+    private void orderOne(TransactionTemplate transactionTemplate, PaidOrder paidOrder, OrderBulkResult result){
+        Order order = paidOrder.order;
+        discardIdentity(order);
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveChunk(List.of(paidOrder)));
+            paidOrder.addTo(result);
+        }catch (RuntimeException e){
+            log.warn("주문 저장 실패 username -> {}", order.getUsername(), e);
+            result.addFailed(order);
+        }
+    }
+
+    private void saveChunk(List<PaidOrder> paid){
+        int saved = 0;
+        for (PaidOrder paidOrder : paid) {
+            em.persist(paidOrder.order);
+            orderOutbox.payResult(paidOrder.order);
+            if(++saved % jdbcBatchSize == 0){
+                em.flush();
+                em.clear();
+            }
+        }
+    }
+
+    // 롤백된 시도에서 발급받은 id, version은 버린다. -> persist로 새로 저장 (merge 하지 않는다)
+    private static void discardIdentity(Order order){
+        order.setId(null);
+        order.setVersion(null);
+    }
+
+    private void pay(Order order) throws NotEnoughMoneyException{
+        pay(order, false);
+    }
+
+    // bulk -> 대량 주문은 주문마다 실행되므로 debug로 남긴다.
+    private void pay(Order order, boolean bulk) throws NotEnoughMoneyException{
+        payLog(bulk, "call 결제 프로세스");
         if(order.getUsername().equals("예외")){
-            log.info("시스템 예외 발생");
+            payLog(bulk, "시스템 예외 발생");
             throw new RuntimeException("시스템 예외");
         }else if(order.getUsername().equals("잔고부족")){
-            log.info("잔고 부족 비즈니스 예외 발생");
-            order.setPayStatus("대가");
+            payLog(bulk, "잔고 부족 비즈니스 예외 발생");
+            order.setPayStatus("대기");
             throw new NotEnoughMoneyException("잔고가 부족합니다.");
         }else{
             // 정상 승인
-            log.info("정상 승인");
+            payLog(bulk, "정상 승인");
             order.setPayStatus("완료");
         }
-        log.info("결제 프로세스 완료");
+        payLog(bulk, "결제 프로세스 완료");
+    }
+
+    private static void payLog(boolean bulk, String message){
+        if(bulk){
+            log.debug(message);
+        }else{
+            log.info(message);
+        }
+    }
+
+    // 결제 판단 결과 (waiting -> 잔고 부족으로 '대기')
+    private static final class PaidOrder {
+
+        private final Order order;
+        private final boolean waiting;
+
+        private PaidOrder(Order order, boolean waiting) {
+            this.order = order;
+            this.waiting = waiting;
+        }
+
+        private void addTo(OrderBulkResult result){
+            if(waiting){
+                result.addWaiting();
+            }else{
+                result.addCompleted();
+            }
+        }
     }
 }
@@ -0,0 +1,26 @@
+package com.lee.springtransaction.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 애플리케이션 내부에서 이벤트를 받아두는 소비자 (테스트, 로컬 확인용)
+ */
+@Slf4j
+public class InMemoryOutboxConsumer implements OutboxConsumer {
+
+    private final ConcurrentLinkedQueue<OutboxEvent> received = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void accept(OutboxEvent event) {
+        log.info("outbox event 수신 id -> {}, type -> {}, payload -> {}", event.getId(), event.getEventType(), event.getPayload());
+        received.add(event);
+    }
+
+    public List<OutboxEvent> getReceived(){
+        return new ArrayList<>(received);
+    }
+}
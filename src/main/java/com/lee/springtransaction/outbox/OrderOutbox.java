@@ -0,0 +1,55 @@
+package com.lee.springtransaction.outbox;
+
+import com.lee.springtransaction.execution.AfterCommitExecutor;
+import com.lee.springtransaction.order.Order;
+import com.lee.springtransaction.support.JsonStrings;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 주문 결제 결과를 주문과 같은 트랜잭션에서 outbox_event 테이블에 기록한다.
+ * 주문이 롤백되면 이벤트도 함께 롤백되고, 주문이 커밋되면 이벤트도 반드시 남는다.
+ * 커밋되면 relay를 깨워서 polling 주기를 기다리지 않고 전달한다. (relay가 꺼져 있으면 하지 않는다)
+ * 트랜잭션 하나에서 이벤트를 여러 건 기록해도(대량 주문 chunk 등) 커밋 후 한 번만 깨운다.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    public static final String AGGREGATE_TYPE = "order";
+    public static final String ORDER_COMPLETED = "ORDER_COMPLETED";
+    public static final String ORDER_WAITING_PAYMENT = "ORDER_WAITING_PAYMENT";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final AfterCommitExecutor afterCommitExecutor;
+    private final ObjectProvider<OutboxRelay> outboxRelay;
+
+    // 주문 트랜잭션에 참여해야 한다.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void payResult(Order order){
+        String eventType = "대기".equals(order.getPayStatus()) ? ORDER_WAITING_PAYMENT : ORDER_COMPLETED;
+        String payload = "{\"orderId\":" + order.getId()
+                + ",\"username\":" + JsonStrings.quote(order.getUsername())
+                + ",\"payStatus\":" + JsonStrings.quote(order.getPayStatus()) + "}";
+        outboxEventRepository.save(new OutboxEvent(AGGREGATE_TYPE, order.getId(), eventType, payload));
+        wakeUpRelayAfterCommit();
+    }
+
+    // 입금 확인으로 '대기' -> '완료' 로 변경된 주문
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void payCompleted(Long orderId){
+        String payload = "{\"orderId\":" + orderId + ",\"payStatus\":" + JsonStrings.quote("완료") + "}";
+        outboxEventRepository.save(new OutboxEvent(AGGREGATE_TYPE, orderId, ORDER_COMPLETED, payload));
+        wakeUpRelayAfterCommit();
+    }
+
+    private void wakeUpRelayAfterCommit(){
+        OutboxRelay relay = outboxRelay.getIfAvailable();
+        if(relay != null){
+            afterCommitExecutor.executeOnce(AGGREGATE_TYPE, relay::wakeUp);
+        }
+    }
+}
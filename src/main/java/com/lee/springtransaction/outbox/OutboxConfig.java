@@ -0,0 +1,31 @@
+package com.lee.springtransaction.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * outbox.relay.enabled=false 면 relay를 시작하지 않는다. (이벤트 기록은 항상 한다)
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxConsumer.class)
+    public InMemoryOutboxConsumer inMemoryOutboxConsumer(){
+        return new InMemoryOutboxConsumer();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+    public OutboxRelay outboxRelay(JdbcTemplate jdbcTemplate, OutboxConsumer outboxConsumer,
+                                   @Value("${outbox.relay.workers:1}") int workers,
+                                   @Value("${outbox.relay.batch-size:100}") int batchSize,
+                                   @Value("${outbox.relay.poll-interval-ms:200}") long pollIntervalMillis,
+                                   @Value("${outbox.relay.claim-timeout-ms:30000}") long claimTimeoutMillis){
+        return new OutboxRelay(jdbcTemplate, outboxConsumer, workers, batchSize, pollIntervalMillis, claimTimeoutMillis);
+    }
+}
@@ -0,0 +1,10 @@
+package com.lee.springtransaction.outbox;
+
+/**
+ * OutboxRelay가 이벤트를 전달하는 대상
+ * 예외를 던지면 해당 이벤트부터 다음 polling 때 다시 전달된다.
+ */
+public interface OutboxConsumer {
+
+    void accept(OutboxEvent event);
+}
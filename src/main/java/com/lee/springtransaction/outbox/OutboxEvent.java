@@ -0,0 +1,53 @@
+package com.lee.springtransaction.outbox;
+
+import com.lee.springtransaction.id.BlockSequenceGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 주문과 같은 트랜잭션에서 저장되는 이벤트
+ * OutboxRelay가 processedAt이 없는 이벤트를 id 순서로 가져가서 전달한다.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_pending", columnList = "processedAt, id"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(generator = "outbox_event_seq")
+    @GenericGenerator(name = "outbox_event_seq", strategy = BlockSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "outbox_event_seq"))
+    private Long id;
+
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+    private String payload;
+    private LocalDateTime createdAt;
+
+    // relay 작업자가 가져간 표시 (다른 작업자는 건너뛴다)
+    private String claimedBy;
+    private LocalDateTime claimedAt;
+    private LocalDateTime processedAt;
+
+    public OutboxEvent(){}
+
+    public OutboxEvent(String aggregateType, Long aggregateId, String eventType, String payload) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+}
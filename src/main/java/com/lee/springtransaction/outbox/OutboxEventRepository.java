@@ -0,0 +1,6 @@
+package com.lee.springtransaction.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+}
@@ -0,0 +1,183 @@
+package com.lee.springtransaction.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * outbox_event 테이블을 polling 해서 처리되지 않은 이벤트를 OutboxConsumer에게 전달한다.
+ *
+ * [순서]
+ * - id 순서로 keyset pagination(id > 마지막 id) 하며 batch-size 만큼 가져온다.
+ *
+ * [여러 작업자]
+ * - 가져온 후보를 "claimed_by is null" 조건의 UPDATE로 한 건씩 선점한다. 갱신된 행이 1건일 때만 내 것이다.
+ *   -> 다른 작업자가 선점한 행은 기다리지 않고 건너뛴다.(SKIP LOCKED와 같은 효과, DB 전용 문법 없이 H2에서도 동작)
+ * - 작업자가 죽어서 claim-timeout 동안 처리되지 않은 이벤트는 다른 작업자가 다시 선점할 수 있다.
+ * - 전달에 실패하면 남은 선점을 풀고 다음 polling 때 그 이벤트부터 다시 전달한다.(at-least-once)
+ *
+ * [wakeUp]
+ * - 주문이 커밋되면 다음 polling을 기다리지 않고 바로 drain 한다. (OrderOutbox -> AfterCommitExecutor)
+ * - 아직 시작하지 않은 요청이 있으면 합친다. (대량 주문 chunk 하나가 커밋되면 한 번만 drain)
+ * - 같은 작업자가 이미 drain 중이면 건너뛴다. -> 한 작업자의 drain은 동시에 실행되지 않는다.
+ */
+@Slf4j
+public class OutboxRelay {
+
+    private static final String SELECT_CANDIDATES_SQL =
+            "select id from outbox_event where processed_at is null and id > ?"
+                    + " and (claimed_by is null or claimed_at < ?) order by id limit ?";
+    private static final String CLAIM_SQL =
+            "update outbox_event set claimed_by = ?, claimed_at = ?"
+                    + " where id = ? and processed_at is null and (claimed_by is null or claimed_at < ?)";
+    private static final String SELECT_CLAIMED_SQL =
+            "select id, aggregate_type, aggregate_id, event_type, payload, created_at from outbox_event"
+                    + " where claimed_by = ? and processed_at is null order by id";
+    private static final String PROCESSED_SQL =
+            "update outbox_event set processed_at = ? where id = ? and claimed_by = ?";
+    private static final String RELEASE_SQL =
+            "update outbox_event set claimed_by = null, claimed_at = null where claimed_by = ? and processed_at is null";
+
+    private static final RowMapper<OutboxEvent> EVENT_ROW_MAPPER = (rs, rowNum) -> {
+        OutboxEvent event = new OutboxEvent(rs.getString("aggregate_type"), rs.getLong("aggregate_id"),
+                rs.getString("event_type"), rs.getString("payload"));
+        event.setId(rs.getLong("id"));
+        event.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        return event;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxConsumer consumer;
+    private final int batchSize;
+    private final long claimTimeoutMillis;
+    private final long pollIntervalMillis;
+    private final List<String> workerIds = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> draining = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, OutboxConsumer consumer, int workers,
+                       int batchSize, long pollIntervalMillis, long claimTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < workers; i++) {
+            workerIds.add(prefix + "-" + i);
+        }
+        this.scheduler = Executors.newScheduledThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(){
+        for (String workerId : workerIds) {
+            scheduler.scheduleWithFixedDelay(() -> poll(workerId), pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 작업자 하나에게 바로 drain 하도록 요청한다. 작업자는 돌아가면서 선택한다.
+     */
+    public void wakeUp(){
+        if(scheduler.isShutdown() || !wakeRequested.compareAndSet(false, true)){
+            return;
+        }
+        String workerId = workerIds.get(Math.floorMod(nextWorker.getAndIncrement(), workerIds.size()));
+        scheduler.execute(() -> {
+            wakeRequested.set(false);
+            poll(workerId);
+        });
+    }
+
+    private void poll(String workerId){
+        if(!draining.add(workerId)){
+            return;
+        }
+        try {
+            drain(workerId);
+        }catch (RuntimeException e){
+            // 예외가 밖으로 나가면 스케줄이 멈추므로 기록만 하고 다음 polling을 기다린다.
+            log.warn("outbox relay polling 실패 worker -> {}", workerId, e);
+        }finally {
+            draining.remove(workerId);
+        }
+    }
+
+    /**
+     * 처리되지 않은 이벤트가 없을 때까지 batch-size 단위로 선점하고 전달한다.
+     * @return 전달한 이벤트 수
+     */
+    public int drain(String workerId){
+        int delivered = 0;
+        long lastId = 0;
+        while (true){
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp staleBefore = Timestamp.valueOf(now.minusNanos(TimeUnit.MILLISECONDS.toNanos(claimTimeoutMillis)));
+
+            List<Long> candidates = jdbcTemplate.queryForList(SELECT_CANDIDATES_SQL, Long.class, lastId, staleBefore, batchSize);
+            if(candidates.isEmpty()){
+                return delivered;
+            }
+            lastId = candidates.get(candidates.size() - 1);
+
+            if(claim(workerId, candidates, Timestamp.valueOf(now), staleBefore) == 0){
+                continue;
+            }
+
+            List<OutboxEvent> events = jdbcTemplate.query(SELECT_CLAIMED_SQL, EVENT_ROW_MAPPER, workerId);
+            for (OutboxEvent event : events) {
+                try {
+                    consumer.accept(event);
+                }catch (RuntimeException e){
+                    log.warn("outbox event 전달 실패 id -> {}, 다음 polling 때 다시 전달", event.getId(), e);
+                    jdbcTemplate.update(RELEASE_SQL, workerId);
+                    return delivered;
+                }
+                jdbcTemplate.update(PROCESSED_SQL, Timestamp.valueOf(LocalDateTime.now()), event.getId(), workerId);
+                delivered++;
+            }
+        }
+    }
+
+    private int claim(String workerId, List<Long> candidates, Timestamp now, Timestamp staleBefore){
+        List<Object[]> args = new ArrayList<>(candidates.size());
+        for (Long id : candidates) {
+            args.add(new Object[]{workerId, now, id, staleBefore});
+        }
+        int claimed = 0;
+        for (int count : jdbcTemplate.batchUpdate(CLAIM_SQL, args)) {
+            if(count == 1){
+                claimed++;
+            }
+        }
+        return claimed;
+    }
+
+    public List<String> getWorkerIds() {
+        return workerIds;
+    }
+}
@@ -0,0 +1,37 @@
+package com.lee.springtransaction.policy;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 실제 커넥션을 가져올 때 현재 트랜잭션의 락 대기 시간 정책을 적용한다. (PolicyEnforcingTransactionManager)
+ * LazyConnectionDataSourceProxy 안쪽에 둔다. -> SQL을 실행하지 않는 트랜잭션은 커넥션을 가져오지 않고 설정 SQL도 실행하지 않는다.
+ * 정책이 없는 트랜잭션이나 트랜잭션 밖에서는 그대로 위임한다.
+ */
+public class LockTimeoutDataSource extends DelegatingDataSource {
+
+    public LockTimeoutDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return apply(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return apply(super.getConnection(username, password));
+    }
+
+    private Connection apply(Connection connection){
+        LockTimeoutSetting setting = LockTimeoutSetting.current();
+        if(setting != null){
+            setting.apply(connection);
+        }
+        return connection;
+    }
+}
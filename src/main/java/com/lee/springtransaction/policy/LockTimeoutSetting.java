@@ -0,0 +1,81 @@
+package com.lee.springtransaction.policy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 트랜잭션 하나의 락 대기 시간 정책
+ * 트랜잭션이 실제 커넥션을 가져올 때 한 번 적용하고(이전 값을 조회해 둔다), 트랜잭션이 끝나면 이전 값으로 되돌린다.
+ * 현재 트랜잭션에 리소스로 바인딩된다. -> LockTimeoutDataSource가 커넥션을 가져올 때 찾는다.
+ */
+@Slf4j
+final class LockTimeoutSetting {
+
+    private static final Object RESOURCE_KEY = LockTimeoutSetting.class;
+
+    private final TransactionPolicy policy;
+    private final String lockTimeoutSql;
+    private final String lockTimeoutQuerySql;
+
+    private Connection connection;
+    private long previousMillis;
+    private boolean applied;
+
+    LockTimeoutSetting(TransactionPolicy policy, String lockTimeoutSql, String lockTimeoutQuerySql) {
+        this.policy = policy;
+        this.lockTimeoutSql = lockTimeoutSql;
+        this.lockTimeoutQuerySql = lockTimeoutQuerySql;
+    }
+
+    static LockTimeoutSetting current(){
+        return (LockTimeoutSetting) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+    }
+
+    void bind(){
+        TransactionSynchronizationManager.bindResource(RESOURCE_KEY, this);
+    }
+
+    void unbind(){
+        TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+    }
+
+    /**
+     * 트랜잭션의 첫 번째 커넥션에만 적용한다. 이전 값을 조회하지 못하면 되돌릴 수 없으므로 적용하지 않는다.
+     */
+    void apply(Connection connection){
+        if(this.connection != null){
+            return;
+        }
+        this.connection = connection;
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(lockTimeoutQuerySql)) {
+                if(!resultSet.next()){
+                    log.warn("락 대기 시간 조회 결과 없음 policy -> {}", policy.getPattern());
+                    return;
+                }
+                previousMillis = resultSet.getLong(1);
+            }
+            statement.execute(String.format(lockTimeoutSql, policy.getLockTimeoutMillis()));
+            applied = true;
+        }catch (SQLException e){
+            log.warn("락 대기 시간 설정 실패 policy -> {}", policy.getPattern(), e);
+        }
+    }
+
+    // 커밋/롤백 이후, 커넥션을 반납하기 전에 호출된다.
+    void restore(){
+        if(!applied){
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(String.format(lockTimeoutSql, previousMillis));
+        }catch (SQLException e){
+            log.warn("락 대기 시간 복구 실패 policy -> {}", policy.getPattern(), e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.lee.springtransaction.policy;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DelegatingTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * PlatformTransactionManager 데코레이터
+ * 트랜잭션 이름으로 TransactionPolicyRegistry에서 정책을 찾아 적용한다.
+ *
+ * - isolation, timeout -> @Transactional에 지정하지 않은(기본값) 항목만 정책 값으로 바꿔서 트랜잭션을 시작한다.
+ *   트랜잭션 매니저가 새 물리 트랜잭션을 시작할 때만 적용된다. (기존 트랜잭션에 참여하면 무시된다)
+ * - lock timeout -> 새 물리 트랜잭션이면 커넥션에 락 대기 시간을 설정하고, 트랜잭션이 끝나면 설정 전 값으로 되돌린다.
+ *   지연 커넥션(LazyConnectionDataSourceProxy -> LockTimeoutDataSource)이면 실제 커넥션을 가져올 때 설정한다.
+ *   -> 시작 시점에 커넥션을 가져오지 않고, SQL을 실행하지 않는 트랜잭션은 설정하지 않는다.
+ *   지연 커넥션이 아니면 이미 트랜잭션 시작 시 커넥션을 가져왔으므로 바로 설정한다.
+ */
+public class PolicyEnforcingTransactionManager implements PlatformTransactionManager {
+
+    private final PlatformTransactionManager delegate;
+    private final TransactionPolicyRegistry registry;
+    private final Supplier<DataSource> dataSource;
+    private final String lockTimeoutSql;
+    private final String lockTimeoutQuerySql;
+
+    public PolicyEnforcingTransactionManager(PlatformTransactionManager delegate, TransactionPolicyRegistry registry,
+                                             Supplier<DataSource> dataSource, String lockTimeoutSql,
+                                             String lockTimeoutQuerySql) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.dataSource = dataSource;
+        this.lockTimeoutSql = lockTimeoutSql;
+        this.lockTimeoutQuerySql = lockTimeoutQuerySql;
+    }
+
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionPolicy policy = definition != null ? registry.resolve(definition.getName()) : null;
+        if(policy == null){
+            return delegate.getTransaction(definition);
+        }
+
+        TransactionStatus status = delegate.getTransaction(new PolicyDefinition(definition, policy));
+        if(status.isNewTransaction() && TransactionSynchronizationManager.isSynchronizationActive()){
+            policy.hit();
+            LockTimeoutSetting lockTimeout = policy.hasLockTimeout() ? bindLockTimeout(policy) : null;
+            TransactionSynchronizationManager.registerSynchronization(
+                    new PolicySynchronization(policy, System.nanoTime(), lockTimeout));
+        }
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        delegate.commit(status);
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        delegate.rollback(status);
+    }
+
+    private LockTimeoutSetting bindLockTimeout(TransactionPolicy policy){
+        LockTimeoutSetting lockTimeout = new LockTimeoutSetting(policy, lockTimeoutSql, lockTimeoutQuerySql);
+        lockTimeout.bind();
+        DataSource target = dataSource.get();
+        if(!appliesOnConnection(target) && TransactionSynchronizationManager.hasResource(target)){
+            // 트랜잭션에 바인딩된 커넥션 -> 반납하지 않는다.
+            lockTimeout.apply(DataSourceUtils.getConnection(target));
+        }
+        return lockTimeout;
+    }
+
+    private static boolean appliesOnConnection(DataSource target){
+        try {
+            return target.isWrapperFor(LockTimeoutDataSource.class);
+        }catch (SQLException e){
+            return false;
+        }
+    }
+
+    private final class PolicySynchronization implements TransactionSynchronization {
+
+        private final TransactionPolicy policy;
+        private final long start;
+        private final LockTimeoutSetting lockTimeout;
+
+        private PolicySynchronization(TransactionPolicy policy, long start, LockTimeoutSetting lockTimeout) {
+            this.policy = policy;
+            this.start = start;
+            this.lockTimeout = lockTimeout;
+        }
+
+        @Override
+        public void suspend() {
+            // REQUIRES_NEW -> 신규 트랜잭션의 커넥션에는 적용하지 않는다.
+            if(lockTimeout != null){
+                lockTimeout.unbind();
+            }
+        }
+
+        @Override
+        public void resume() {
+            if(lockTimeout != null){
+                lockTimeout.bind();
+            }
+        }
+
+        // 커밋 시점의 flush까지 끝난 다음, 커넥션을 반납하기 전에 호출된다.
+        @Override
+        public void afterCompletion(int status) {
+            policy.completed(status != STATUS_COMMITTED, System.nanoTime() - start);
+            if(lockTimeout != null){
+                lockTimeout.unbind();
+                lockTimeout.restore();
+            }
+        }
+    }
+
+    // @Transactional에 지정한 값이 우선, 기본값인 항목만 정책 값을 사용한다.
+    private static final class PolicyDefinition extends DelegatingTransactionDefinition {
+
+        private final TransactionPolicy policy;
+
+        private PolicyDefinition(TransactionDefinition target, TransactionPolicy policy) {
+            super(target);
+            this.policy = policy;
+        }
+
+        @Override
+        public int getIsolationLevel() {
+            int isolationLevel = super.getIsolationLevel();
+            return isolationLevel != ISOLATION_DEFAULT ? isolationLevel : policy.getIsolationLevel();
+        }
+
+        @Override
+        public int getTimeout() {
+            int timeout = super.getTimeout();
+            return timeout != TIMEOUT_DEFAULT ? timeout : policy.getTimeoutSeconds();
+        }
+    }
+}
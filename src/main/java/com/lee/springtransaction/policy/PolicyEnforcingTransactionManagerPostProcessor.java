@@ -0,0 +1,41 @@
+package com.lee.springtransaction.policy;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * 스프링 빈으로 등록된 모든 PlatformTransactionManager를 PolicyEnforcingTransactionManager로 감싼다.
+ * Ordered -> 순서가 없는 MeteredTransactionManagerPostProcessor보다 먼저 적용되어 안쪽에 위치한다.
+ */
+public class PolicyEnforcingTransactionManagerPostProcessor implements BeanPostProcessor, Ordered {
+
+    private final TransactionPolicyRegistry registry;
+    private final TransactionPolicyProperties properties;
+    private final ObjectProvider<DataSource> dataSource;
+
+    public PolicyEnforcingTransactionManagerPostProcessor(TransactionPolicyRegistry registry, TransactionPolicyProperties properties,
+                                                          ObjectProvider<DataSource> dataSource) {
+        this.registry = registry;
+        this.properties = properties;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if(bean instanceof PlatformTransactionManager && !(bean instanceof PolicyEnforcingTransactionManager)){
+            return new PolicyEnforcingTransactionManager((PlatformTransactionManager) bean, registry,
+                    dataSource::getObject, properties.getLockTimeoutSql(), properties.getLockTimeoutQuerySql());
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
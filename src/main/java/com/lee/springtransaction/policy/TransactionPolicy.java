@@ -0,0 +1,106 @@
+package com.lee.springtransaction.policy;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 설정 키 하나에 해당하는 정책과 적용 결과
+ * - hits : 정책을 적용해서 시작한 물리 트랜잭션 수
+ * - rollbacks : 그중 롤백된 수
+ * - overruns : timeout 보다 오래 걸린 수 (타임아웃으로 실패했거나, 타임아웃 확인 지점 이후에 오래 걸린 트랜잭션)
+ */
+public class TransactionPolicy {
+
+    private final String pattern;
+    private final String prefix;
+    private final boolean wildcard;
+    private final int isolationLevel;
+    private final int timeoutSeconds;
+    private final long lockTimeoutMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder rollbacks = new LongAdder();
+    private final LongAdder overruns = new LongAdder();
+
+    public TransactionPolicy(String pattern, TransactionPolicyProperties.Policy policy) {
+        this.pattern = pattern;
+        this.wildcard = pattern.endsWith("*");
+        this.prefix = wildcard ? pattern.substring(0, pattern.length() - 1) : pattern;
+        this.isolationLevel = policy.getIsolation() != null ? policy.getIsolation().value() : Isolation.DEFAULT.value();
+        this.timeoutSeconds = toSeconds(policy.getTimeout());
+        this.lockTimeoutMillis = policy.getLockTimeout() != null ? policy.getLockTimeout().toMillis() : -1;
+    }
+
+    // 트랜잭션 이름 전체 또는 "클래스 단순 이름.메서드"와 비교한다.
+    boolean matches(String name, String simpleName){
+        if(wildcard){
+            return name.startsWith(prefix) || simpleName.startsWith(prefix);
+        }
+        return name.equals(pattern) || simpleName.equals(pattern);
+    }
+
+    boolean isWildcard() {
+        return wildcard;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getIsolationLevel() {
+        return isolationLevel;
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public long getLockTimeoutMillis() {
+        return lockTimeoutMillis;
+    }
+
+    public boolean hasLockTimeout(){
+        return lockTimeoutMillis >= 0;
+    }
+
+    void hit(){
+        hits.increment();
+    }
+
+    void completed(boolean rolledBack, long elapsedNanos){
+        if(rolledBack){
+            rollbacks.increment();
+        }
+        if(timeoutSeconds != TransactionDefinition.TIMEOUT_DEFAULT && elapsedNanos > timeoutSeconds * 1_000_000_000L){
+            overruns.increment();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getRollbacks() {
+        return rollbacks.sum();
+    }
+
+    public long getOverruns() {
+        return overruns.sum();
+    }
+
+    private static int toSeconds(Duration timeout){
+        if(timeout == null){
+            return TransactionDefinition.TIMEOUT_DEFAULT;
+        }
+        // 트랜잭션 타임아웃은 초 단위 -> 1초 미만은 1초로 올린다.
+        return (int) Math.max(1, (timeout.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    public String toString() {
+        return pattern + " [hit=" + getHits() + ", rollback=" + getRollbacks() + ", overrun=" + getOverruns() + "]";
+    }
+}
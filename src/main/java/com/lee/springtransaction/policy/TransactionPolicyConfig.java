@@ -0,0 +1,30 @@
+package com.lee.springtransaction.policy;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * transaction.policy.enabled=false 로 끌 수 있다.
+ * 종료할 때 적용된 정책별 결과를 로그로 남긴다.
+ */
+@Configuration
+@EnableConfigurationProperties(TransactionPolicyProperties.class)
+@ConditionalOnProperty(name = "transaction.policy.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionPolicyConfig {
+
+    @Bean(destroyMethod = "logReport")
+    public static TransactionPolicyRegistry transactionPolicyRegistry(TransactionPolicyProperties properties){
+        return new TransactionPolicyRegistry(properties);
+    }
+
+    @Bean
+    public static PolicyEnforcingTransactionManagerPostProcessor policyEnforcingTransactionManagerPostProcessor(
+            TransactionPolicyRegistry registry, TransactionPolicyProperties properties, ObjectProvider<DataSource> dataSource){
+        return new PolicyEnforcingTransactionManagerPostProcessor(registry, properties, dataSource);
+    }
+}
@@ -0,0 +1,44 @@
+package com.lee.springtransaction.policy;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.transaction.annotation.Isolation;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 메서드별 트랜잭션 정책 설정
+ *
+ * transaction.policy.methods[OrderService.order].timeout=5s
+ * transaction.policy.methods[OrderService.order].lock-timeout=2s
+ * transaction.policy.methods[MemberService.join*].isolation=READ_COMMITTED
+ *
+ * 키 -> 트랜잭션 이름(패키지 포함 클래스.메서드) 또는 클래스 단순 이름.메서드, 끝에 * 를 붙이면 접두사로 비교한다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.policy")
+public class TransactionPolicyProperties {
+
+    private boolean enabled = true;
+
+    // 락 대기 시간 설정 SQL, %d -> 밀리초 (H2)
+    private String lockTimeoutSql = "SET LOCK_TIMEOUT %d";
+
+    // 설정하기 전 커넥션의 락 대기 시간(밀리초) 조회 SQL -> 트랜잭션이 끝나면 이 값으로 되돌린다. (H2)
+    private String lockTimeoutQuerySql = "SELECT LOCK_TIMEOUT()";
+
+    private Map<String, Policy> methods = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Policy {
+
+        private Isolation isolation;
+        private Duration timeout;
+        private Duration lockTimeout;
+    }
+}
@@ -0,0 +1,84 @@
+package com.lee.springtransaction.policy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * 트랜잭션 이름(@Transactional 메서드 이름)으로 정책을 찾는다.
+ * 우선순위 -> 정확히 일치하는 키 > 접두사(*) 키, 같은 종류면 긴 키
+ * 이름별 결과를 캐시한다. (정책이 없는 이름도 캐시)
+ */
+@Slf4j
+public class TransactionPolicyRegistry {
+
+    private static final TransactionPolicy NONE = new TransactionPolicy("", new TransactionPolicyProperties.Policy());
+
+    private final List<TransactionPolicy> policies;
+    private final ConcurrentMap<String, TransactionPolicy> resolved = new ConcurrentHashMap<>();
+
+    public TransactionPolicyRegistry(TransactionPolicyProperties properties) {
+        List<TransactionPolicy> sorted = new ArrayList<>();
+        for (Map.Entry<String, TransactionPolicyProperties.Policy> entry : properties.getMethods().entrySet()) {
+            sorted.add(new TransactionPolicy(entry.getKey(), entry.getValue()));
+        }
+        sorted.sort(Comparator.comparing(TransactionPolicy::isWildcard)
+                .thenComparing(policy -> -policy.getPattern().length()));
+        this.policies = Collections.unmodifiableList(sorted);
+        log.info("트랜잭션 정책 -> {}", policies.stream().map(TransactionPolicy::getPattern).collect(Collectors.toList()));
+    }
+
+    /**
+     * @return 정책이 없으면 null
+     */
+    public TransactionPolicy resolve(String name){
+        if(name == null || policies.isEmpty()){
+            return null;
+        }
+        TransactionPolicy policy = resolved.get(name);
+        if(policy == null){
+            policy = resolved.computeIfAbsent(name, this::find);
+        }
+        return policy == NONE ? null : policy;
+    }
+
+    public List<TransactionPolicy> getPolicies() {
+        return policies;
+    }
+
+    // 한 번 이상 적용된 정책을 로그로 남긴다.
+    public void logReport(){
+        for (TransactionPolicy policy : policies) {
+            if(policy.getHits() > 0){
+                log.info("트랜잭션 정책 적용 결과 {}", policy);
+            }
+        }
+    }
+
+    private TransactionPolicy find(String name){
+        String simpleName = simpleName(name);
+        for (TransactionPolicy policy : policies) {
+            if(policy.matches(name, simpleName)){
+                return policy;
+            }
+        }
+        return NONE;
+    }
+
+    // com.lee.springtransaction.order.OrderService.order -> OrderService.order
+    private static String simpleName(String name){
+        int methodDot = name.lastIndexOf('.');
+        if(methodDot <= 0){
+            return name;
+        }
+        int classDot = name.lastIndexOf('.', methodDot - 1);
+        return name.substring(classDot + 1);
+    }
+}
@@ -0,0 +1,210 @@
+package com.lee.springtransaction.propagation;
+
+import com.lee.springtransaction.cache.LookupCache;
+import com.lee.springtransaction.id.BlockSequenceGenerator;
+import com.lee.springtransaction.id.JdbcSequenceIds;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LogRepository.save()의 REQUIRES_NEW 대신 사용하는 비동기 배치 로그 저장소
+ * REQUIRES_NEW는 로그 한 건마다 외부 트랜잭션을 보류하고 커넥션을 하나 더 사용한다.
+ * -> 로그를 제한된 크기의 큐에 담아두고, 백그라운드 쓰레드가 여러 건을 하나의 JDBC 배치로 저장한다.
+ *
+ * - flush-size 만큼 모이거나 flush-interval 이 지나면 저장한다.
+ * - 큐가 가득 차면 호출한 쓰레드를 offer-timeout 만큼 대기시킨다.(backpressure)
+ * - 대기 후에도 자리가 없거나 저장에 실패해도 예외를 던지지 않는다.
+ *   -> joinV2와 마찬가지로 로그 저장 실패가 회원 트랜잭션을 롤백시키지 않는다.
+ */
+@Slf4j
+@Component
+public class AsyncLogWriter {
+
+    private static final String INSERT_SQL = "insert into log (id, message) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcSequenceIds logIds;
+    private final LookupCache<String, Log> logFinderCache;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Log> queue;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+
+    // 큐에 들어갔지만 아직 저장(또는 폐기)되지 않은 로그 수
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread writerThread;
+    private volatile boolean running;
+
+    public AsyncLogWriter(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          LookupCache<String, Log> logFinderCache,
+                          @Value("${log.writer.queue-capacity:10000}") int queueCapacity,
+                          @Value("${log.writer.flush-size:100}") int flushSize,
+                          @Value("${log.writer.flush-interval-ms:50}") long flushIntervalMillis,
+                          @Value("${log.writer.offer-timeout-ms:100}") long offerTimeoutMillis,
+                          @Value("${spring.jpa.properties." + BlockSequenceGenerator.BLOCK_SIZE_SETTING + ":"
+                                  + BlockSequenceGenerator.DEFAULT_BLOCK_SIZE + "}") int idBlockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Log 엔티티와 같은 시퀀스(log_seq), 같은 블록 크기로 id를 발급한다.
+        this.logIds = new JdbcSequenceIds(jdbcTemplate, "log_seq", idBlockSize);
+        this.logFinderCache = logFinderCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.writerThread = new Thread(this::run, "async-log-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start(){
+        running = true;
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5_000);
+    }
+
+    /**
+     * 로그를 큐에 담는다. 로그 저장 실패는 호출자에게 전파하지 않는다.
+     */
+    public void write(Log logMessage){
+        if(!running){
+            drop(logMessage, "writer 종료됨");
+            return;
+        }
+        pending.incrementAndGet();
+        try {
+            if(!queue.offer(logMessage, offerTimeoutMillis, TimeUnit.MILLISECONDS)){
+                pending.decrementAndGet();
+                drop(logMessage, "큐 가득 참");
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            pending.decrementAndGet();
+            drop(logMessage, "대기 중 인터럽트");
+        }
+    }
+
+    /**
+     * 큐에 쌓인 로그가 모두 저장될 때까지 기다린다.
+     * @return 제한 시간 안에 모두 저장되었으면 true
+     */
+    public boolean awaitFlushed(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pending.get() > 0){
+            if(System.nanoTime() - deadline >= 0){
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    public long getDroppedCount(){
+        return dropped.get();
+    }
+
+    private void run(){
+        List<Log> batch = new ArrayList<>(flushSize);
+        while (running || !queue.isEmpty()){
+            try {
+                collect(batch);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                running = false;
+            }
+            if(!batch.isEmpty()){
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // 첫 로그가 들어온 시점부터 flush-interval 동안 flush-size 까지 모은다.
+    private void collect(List<Log> batch) throws InterruptedException {
+        Log first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if(first == null){
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < flushSize){
+            queue.drainTo(batch, flushSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if(batch.size() >= flushSize || remaining <= 0){
+                return;
+            }
+            Log next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if(next == null){
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Log> batch){
+        try {
+            for (Log logMessage : batch) {
+                if(logMessage.getId() == null){
+                    logMessage.setId(logIds.next());
+                }
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, logMessage) -> {
+                        ps.setLong(1, logMessage.getId());
+                        ps.setString(2, logMessage.getMessage());
+                    }));
+            // 커밋이 끝났으므로 바로 무효화한다.
+            for (Log logMessage : batch) {
+                logFinderCache.evict(logMessage.getMessage());
+            }
+        }catch (RuntimeException e){
+            // 배치 중 한 건이 실패하면 배치 전체가 롤백되므로, 한 건씩 다시 저장해서 나머지 로그는 살린다.
+            log.warn("log 배치 저장 실패, 개별 저장으로 재시도 size -> {}", batch.size(), e);
+            for (Log logMessage : batch) {
+                flushOne(logMessage);
+            }
+        }finally {
+            pending.addAndGet(-batch.size());
+        }
+    }
+
+    private void flushOne(Log logMessage){
+        try {
+            if(logMessage.getId() == null){
+                logMessage.setId(logIds.next());
+            }
+            jdbcTemplate.update(INSERT_SQL, logMessage.getId(), logMessage.getMessage());
+            logFinderCache.evict(logMessage.getMessage());
+        }catch (RuntimeException e){
+            drop(logMessage, e.getMessage());
+        }
+    }
+
+    private void drop(Log logMessage, String reason){
+        dropped.incrementAndGet();
+        log.warn("log 저장에 실패하였습니다. logMessage -> {}, reason -> {}", logMessage.getMessage(), reason);
+    }
+}
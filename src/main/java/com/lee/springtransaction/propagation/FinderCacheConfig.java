@@ -0,0 +1,32 @@
+package com.lee.springtransaction.propagation;
+
+import com.lee.springtransaction.cache.LookupCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberRepository.find(), LogRepository.find() 앞단 조회 캐시
+ * Member, Log는 변경 가능한 엔티티이므로 호출자마다 복사본을 반환한다.
+ */
+@Configuration
+public class FinderCacheConfig {
+
+    @Value("${finder.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${finder.cache.ttl-ms:60000}")
+    private long ttlMillis;
+
+    @Bean
+    public LookupCache<String, Member> memberFinderCache(){
+        return new LookupCache<>(maxSize, ttlMillis, TimeUnit.MILLISECONDS, Member::copy);
+    }
+
+    @Bean
+    public LookupCache<String, Log> logFinderCache(){
+        return new LookupCache<>(maxSize, ttlMillis, TimeUnit.MILLISECONDS, Log::copy);
+    }
+}
@@ -1,19 +1,28 @@
 package com.lee.springtransaction.propagation;
 
+import com.lee.springtransaction.id.BlockSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 @Getter
 @Setter
 @Entity
+@Table(indexes = @Index(name = "idx_log_message", columnList = "message"))
 public class Log {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "log_seq")
+    @GenericGenerator(name = "log_seq", strategy = BlockSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "log_seq"))
     private Long id;
     private String message;
 
@@ -22,4 +31,11 @@ public class Log {
     public Log(String message) {
         this.message = message;
     }
+
+    // 준영속 복사본 (조회 캐시에서 호출자마다 다른 인스턴스를 반환할 때 사용)
+    public Log copy() {
+        Log copy = new Log(message);
+        copy.setId(id);
+        return copy;
+    }
 }
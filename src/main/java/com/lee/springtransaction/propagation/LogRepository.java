@@ -1,12 +1,20 @@
 package com.lee.springtransaction.propagation;
 
+import com.lee.springtransaction.cache.LookupCache;
+import com.lee.springtransaction.export.ExportFormat;
+import com.lee.springtransaction.export.StreamingExporter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.TypedQuery;
+import java.nio.file.Path;
 import java.util.Optional;
 
 @Slf4j
@@ -15,11 +23,14 @@ import java.util.Optional;
 public class LogRepository {
 
     private final EntityManager em;
+    private final LookupCache<String, Log> logFinderCache;
+    private final StreamingExporter streamingExporter;
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void save(Log logMessage){
         log.info("log save");
         em.persist(logMessage);
+        logFinderCache.evictAfterCommit(logMessage.getMessage());
 
         if(logMessage.getMessage().contains("로그예외")){
             log.info("log 저장 시 예외발생");
@@ -27,9 +38,59 @@ public class LogRepository {
         }
     }
 
+    /**
+     * save()와 같지만 REQUIRES_NEW 대신 외부 트랜잭션의 커넥션에 savepoint를 만든다. (SavepointHibernateJpaDialect)
+     * 예외가 발생하면 savepoint까지만 롤백되고 외부 트랜잭션은 계속 진행할 수 있다.
+     * -> 외부 트랜잭션을 보류하지 않고 커넥션도 하나만 사용한다. 단, 외부 트랜잭션이 롤백되면 로그도 함께 롤백된다.
+     */
+    @Transactional(propagation = Propagation.NESTED)
+    public void saveNested(Log logMessage){
+        log.info("log saveNested");
+        em.persist(logMessage);
+        logFinderCache.evictAfterCommit(logMessage.getMessage());
+
+        if(logMessage.getMessage().contains("로그예외")){
+            log.info("log 저장 시 예외발생");
+            throw new RuntimeException("예외 발생");
+        }
+    }
+
+    /**
+     * 캐시를 먼저 확인하고, 없을 때만 DB를 조회한다. 캐시 hit는 트랜잭션을 시작하지 않는다.
+     * - 트랜잭션 밖 -> 트랜잭션 없이 primary에서 조회하고 캐시에 넣는다.
+     * - 읽기 전용 트랜잭션 안 -> 트랜잭션 커넥션(replica일 수 있음)으로 조회하고 캐시에 넣지 않는다.
+     *   replica는 늦게 반영될 수 있으므로, 커밋 후 무효화된 항목을 오래된 값으로 다시 채우지 않는다.
+     * - 쓰기 트랜잭션 안 -> 캐시를 사용하지 않는다.
+     */
     public Optional<Log> find(String message){
-        return em.createQuery("select l from Log l where l.message = :message", Log.class)
+        if(!LookupCache.isReadPath()){
+            return findFromDb(message);
+        }
+        if(TransactionSynchronizationManager.isActualTransactionActive()){
+            return logFinderCache.getOrLoad(message, this::findFromDb);
+        }
+        return logFinderCache.get(message, this::findFromDb);
+    }
+
+    // message 인덱스(idx_log_message)를 사용해서 최대 한 건만 조회한다.
+    private Optional<Log> findFromDb(String message){
+        TypedQuery<Log> query = em.createQuery("select l from Log l where l.message = :message", Log.class)
                 .setParameter("message", message)
-                .getResultList().stream().findAny();
+                .setMaxResults(1);
+        if(LookupCache.isReadPath()){
+            // 읽기 경로 -> 스냅샷을 만들지 않고(readOnly), 조회 전에 flush 하지 않는다.
+            query.setHint(QueryHints.HINT_READONLY, true)
+                    .setFlushMode(FlushModeType.COMMIT);
+        }
+        return query.getResultList().stream().findFirst();
+    }
+
+    /**
+     * Log 테이블 전체를 파일로 내보낸다. 행 수와 관계없이 일정한 메모리를 사용한다. (StreamingExporter)
+     * @return 내보낸 행 수
+     */
+    public long export(Path path, ExportFormat format){
+        return streamingExporter.export("select l.id, l.message from Log l order by l.id",
+                new String[]{"id", "message"}, path, format);
     }
 }
@@ -1,11 +1,19 @@
 package com.lee.springtransaction.propagation;
 
+import com.lee.springtransaction.cache.LookupCache;
+import com.lee.springtransaction.export.ExportFormat;
+import com.lee.springtransaction.export.StreamingExporter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.TypedQuery;
+import java.nio.file.Path;
 import java.util.Optional;
 
 @Slf4j
@@ -14,16 +22,54 @@ import java.util.Optional;
 public class MemberRepository {
 
     private final EntityManager em;
+    private final LookupCache<String, Member> memberFinderCache;
+    private final StreamingExporter streamingExporter;
 
     @Transactional
     public void save(Member member){
         log.info("member save");
-        em.persist(em);
+        em.persist(member);
+        // 커밋된 이후에만 캐시를 무효화한다. -> 롤백되면 캐시에 아무 영향이 없다.
+        memberFinderCache.evictAfterCommit(member.getUsername());
     }
 
+    /**
+     * 캐시를 먼저 확인하고, 없을 때만 DB를 조회한다. 캐시 hit는 트랜잭션을 시작하지 않는다.
+     * - 트랜잭션 밖 -> 트랜잭션 없이 primary에서 조회하고 캐시에 넣는다.
+     * - 읽기 전용 트랜잭션 안 -> 트랜잭션 커넥션(replica일 수 있음)으로 조회하고 캐시에 넣지 않는다.
+     *   replica는 늦게 반영될 수 있으므로, 커밋 후 무효화된 항목을 오래된 값으로 다시 채우지 않는다.
+     * - 쓰기 트랜잭션 안 -> 캐시를 사용하지 않는다.
+     * 캐시에서 꺼낸 Member는 복사본(준영속)이므로 변경해도 DB에 반영되지 않는다.
+     */
     public Optional<Member> find(String username){
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+        if(!LookupCache.isReadPath()){
+            return findFromDb(username);
+        }
+        if(TransactionSynchronizationManager.isActualTransactionActive()){
+            return memberFinderCache.getOrLoad(username, this::findFromDb);
+        }
+        return memberFinderCache.get(username, this::findFromDb);
+    }
+
+    // username 인덱스(idx_member_username)를 사용해서 최대 한 건만 조회한다.
+    private Optional<Member> findFromDb(String username){
+        TypedQuery<Member> query = em.createQuery("select m from Member m where m.username = :username", Member.class)
                 .setParameter("username", username)
-                .getResultList().stream().findAny();
+                .setMaxResults(1);
+        if(LookupCache.isReadPath()){
+            // 읽기 경로 -> 스냅샷을 만들지 않고(readOnly), 조회 전에 flush 하지 않는다.
+            query.setHint(QueryHints.HINT_READONLY, true)
+                    .setFlushMode(FlushModeType.COMMIT);
+        }
+        return query.getResultList().stream().findFirst();
+    }
+
+    /**
+     * Member 테이블 전체를 파일로 내보낸다. 행 수와 관계없이 일정한 메모리를 사용한다. (StreamingExporter)
+     * @return 내보낸 행 수
+     */
+    public long export(Path path, ExportFormat format){
+        return streamingExporter.export("select m.id, m.username from Member m order by m.id",
+                new String[]{"id", "username"}, path, format);
     }
 }
@@ -1,5 +1,6 @@
 package com.lee.springtransaction.propagation;
 
+import com.lee.springtransaction.execution.AfterCommitExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,7 +13,10 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LogRepository logRepository;
+    private final AsyncLogWriter asyncLogWriter;
+    private final AfterCommitExecutor afterCommitExecutor;
 
+    // 재시도하지 않는다. -> 로그는 REQUIRES_NEW로 먼저 커밋되므로 회원 저장(커밋 시점 flush)이 실패해서 다시 실행하면 로그가 중복된다.
     @Transactional
     public void joinV1(String username){
         Member member = new Member(username);
@@ -45,4 +49,47 @@ public class MemberService {
         }
         log.info("logRepository 호출 종료");
     }
+
+    /**
+     * 로그를 REQUIRES_NEW 트랜잭션 대신 AsyncLogWriter 큐에 담는다.
+     * 외부 트랜잭션을 보류하지 않고, 커넥션도 하나만 사용한다.
+     * 로그 저장 실패는 AsyncLogWriter가 처리하므로 회원 저장은 롤백되지 않는다.
+     * 큐에 담는 것도 커밋 이후에 한다.(AfterCommitExecutor) -> 회원 저장이 롤백되면 로그를 남기지 않는다.
+     */
+    @Transactional
+    public void joinV3(String username){
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        log.info("memberRepository 호출 시작");
+        memberRepository.save(member);
+        log.info("memberRepository 호출 종료");
+
+        log.info("asyncLogWriter 호출 등록");
+        afterCommitExecutor.execute(username, () -> asyncLogWriter.write(logMessage));
+    }
+
+    /**
+     * joinV2의 REQUIRES_NEW 대신 NESTED(savepoint)로 로그를 저장한다.
+     * 로그 저장에 실패하면 savepoint까지만 롤백되므로 회원은 저장된다.
+     * 외부 트랜잭션을 보류하지 않고 커넥션도 하나만 사용한다.
+     */
+    @Transactional
+    public void joinV4(String username){
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        log.info("memberRepository 호출 시작");
+        memberRepository.save(member);
+        log.info("memberRepository 호출 종료");
+
+        log.info("logRepository 호출 시작");
+        try {
+            logRepository.saveNested(logMessage);
+        }catch (RuntimeException e) {
+            log.info("log 저장에 실패하였습니다. logMessage -> {}", logMessage.getMessage());
+            log.info("정상 흐름 반환");
+        }
+        log.info("logRepository 호출 종료");
+    }
 }
@@ -0,0 +1,48 @@
+package com.lee.springtransaction.reactive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * reactive.enabled=true 일 때 R2DBC 버전의 MemberService, OrderService를 등록한다.
+ * 스프링 부트 R2DBC 자동 설정은 SpringTransactionApplication에서 제외한다. (ReactiveDatabase 참고)
+ */
+@Configuration
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true")
+public class ReactiveConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ReactiveDatabase reactiveDatabase(@Value("${reactive.r2dbc.url}") String url){
+        return new ReactiveDatabase(url);
+    }
+
+    @Bean
+    public ReactiveMemberRepository reactiveMemberRepository(ReactiveDatabase reactiveDatabase){
+        return new ReactiveMemberRepository(reactiveDatabase);
+    }
+
+    @Bean
+    public ReactiveLogRepository reactiveLogRepository(ReactiveDatabase reactiveDatabase){
+        return new ReactiveLogRepository(reactiveDatabase);
+    }
+
+    @Bean
+    public ReactiveOrderRepository reactiveOrderRepository(ReactiveDatabase reactiveDatabase){
+        return new ReactiveOrderRepository(reactiveDatabase);
+    }
+
+    @Bean
+    public ReactiveMemberService reactiveMemberService(ReactiveDatabase reactiveDatabase,
+                                                       ReactiveMemberRepository reactiveMemberRepository,
+                                                       ReactiveLogRepository reactiveLogRepository){
+        return new ReactiveMemberService(reactiveDatabase, reactiveMemberRepository, reactiveLogRepository);
+    }
+
+    @Bean
+    public ReactiveOrderService reactiveOrderService(ReactiveDatabase reactiveDatabase,
+                                                     ReactiveOrderRepository reactiveOrderRepository){
+        return new ReactiveOrderService(reactiveDatabase, reactiveOrderRepository);
+    }
+}
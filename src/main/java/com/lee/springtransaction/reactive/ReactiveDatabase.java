@@ -0,0 +1,78 @@
+package com.lee.springtransaction.reactive;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * R2DBC 커넥션 풀, DatabaseClient, 트랜잭션(TransactionalOperator)
+ *
+ * - JDBC DataSource와 별도의 embedded H2 DB를 사용하고, 시작할 때 스키마를 만든다.
+ * - ConnectionFactory, R2dbcTransactionManager는 빈으로 등록하지 않는다.
+ *   -> ConnectionFactory 빈이 있으면 스프링 부트의 DataSource 자동 설정이 동작하지 않고,
+ *      TransactionManager 빈이 두 개가 되면 @Transactional이 사용할 트랜잭션 매니저를 고를 수 없다.
+ * - 트랜잭션은 @Transactional 대신 TransactionalOperator로 적용한다.
+ */
+public class ReactiveDatabase {
+
+    private static final List<String> SCHEMA = List.of(
+            "create table if not exists member (id bigint generated by default as identity primary key, username varchar(255))",
+            "create index if not exists idx_member_username on member (username)",
+            "create table if not exists log (id bigint generated by default as identity primary key, message varchar(255))",
+            "create index if not exists idx_log_message on log (message)",
+            "create table if not exists orders (id bigint generated by default as identity primary key,"
+                    + " username varchar(255), pay_status varchar(255))");
+
+    private final ConnectionFactory connectionFactory;
+    private final DatabaseClient client;
+    private final TransactionalOperator required;
+    private final TransactionalOperator requiresNew;
+
+    public ReactiveDatabase(String url) {
+        this.connectionFactory = ConnectionFactories.get(url);
+        this.client = DatabaseClient.create(connectionFactory);
+
+        R2dbcTransactionManager transactionManager = new R2dbcTransactionManager(connectionFactory);
+        transactionManager.afterPropertiesSet();
+        this.required = TransactionalOperator.create(transactionManager);
+        this.requiresNew = TransactionalOperator.create(transactionManager,
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    // 애플리케이션 시작 시점이므로 스키마 생성이 끝날 때까지 기다린다.
+    public void start(){
+        Flux.fromIterable(SCHEMA)
+                .concatMap(sql -> client.sql(sql).then())
+                .then()
+                .block();
+    }
+
+    public void stop(){
+        if(connectionFactory instanceof Closeable){
+            Mono.from(((Closeable) connectionFactory).close()).block();
+        }
+    }
+
+    public DatabaseClient getClient() {
+        return client;
+    }
+
+    // 트랜잭션이 없으면 새로 시작하고, 있으면 참여한다.
+    public TransactionalOperator getRequired() {
+        return required;
+    }
+
+    // 진행 중인 트랜잭션을 보류하고 새 트랜잭션(새 커넥션)을 시작한다.
+    public TransactionalOperator getRequiresNew() {
+        return requiresNew;
+    }
+}
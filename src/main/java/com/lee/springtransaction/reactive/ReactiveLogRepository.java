@@ -0,0 +1,48 @@
+package com.lee.springtransaction.reactive;
+
+import com.lee.springtransaction.propagation.Log;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * LogRepository의 R2DBC 버전
+ * save()는 LogRepository.save()처럼 항상 새 트랜잭션에서 저장한다. (REQUIRES_NEW)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveLogRepository {
+
+    private final ReactiveDatabase database;
+
+    public Mono<Log> save(Log logMessage){
+        Mono<Log> save = Mono.defer(() -> {
+            log.info("log save");
+            return database.getClient().sql("insert into log (message) values (:message)")
+                    .bind("message", logMessage.getMessage())
+                    .filter(statement -> statement.returnGeneratedValues("id"))
+                    .map(row -> row.get("id", Long.class))
+                    .one()
+                    .flatMap(id -> {
+                        logMessage.setId(id);
+                        if(logMessage.getMessage().contains("로그예외")){
+                            log.info("log 저장 시 예외발생");
+                            return Mono.error(new RuntimeException("예외 발생"));
+                        }
+                        return Mono.just(logMessage);
+                    });
+        });
+        return database.getRequiresNew().transactional(save);
+    }
+
+    public Mono<Log> find(String message){
+        return database.getClient().sql("select id, message from log where message = :message limit 1")
+                .bind("message", message)
+                .map(row -> {
+                    Log logMessage = new Log(row.get("message", String.class));
+                    logMessage.setId(row.get("id", Long.class));
+                    return logMessage;
+                })
+                .one();
+    }
+}
@@ -0,0 +1,44 @@
+package com.lee.springtransaction.reactive;
+
+import com.lee.springtransaction.propagation.Member;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * MemberRepository의 R2DBC 버전
+ * 진행 중인 트랜잭션이 있으면 참여한다. (REQUIRED)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveMemberRepository {
+
+    private final ReactiveDatabase database;
+
+    public Mono<Member> save(Member member){
+        Mono<Member> save = Mono.defer(() -> {
+            log.info("member save");
+            return database.getClient().sql("insert into member (username) values (:username)")
+                    .bind("username", member.getUsername())
+                    .filter(statement -> statement.returnGeneratedValues("id"))
+                    .map(row -> row.get("id", Long.class))
+                    .one()
+                    .map(id -> {
+                        member.setId(id);
+                        return member;
+                    });
+        });
+        return database.getRequired().transactional(save);
+    }
+
+    public Mono<Member> find(String username){
+        return database.getClient().sql("select id, username from member where username = :username limit 1")
+                .bind("username", username)
+                .map(row -> {
+                    Member member = new Member(row.get("username", String.class));
+                    member.setId(row.get("id", Long.class));
+                    return member;
+                })
+                .one();
+    }
+}
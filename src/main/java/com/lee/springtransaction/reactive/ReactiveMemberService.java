@@ -0,0 +1,47 @@
+package com.lee.springtransaction.reactive;
+
+import com.lee.springtransaction.propagation.Log;
+import com.lee.springtransaction.propagation.Member;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * MemberService.joinV1, joinV2의 R2DBC 버전
+ * 쓰레드를 DB 응답 대기로 점유하지 않는다. 트랜잭션은 쓰레드가 아니라 구독(Reactor Context)에 묶인다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveMemberService {
+
+    private final ReactiveDatabase database;
+    private final ReactiveMemberRepository memberRepository;
+    private final ReactiveLogRepository logRepository;
+
+    // 로그 저장(REQUIRES_NEW)이 실패하면 예외가 전파되어 회원 저장도 롤백된다.
+    public Mono<Void> joinV1(String username){
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        Mono<Void> join = memberRepository.save(member)
+                .then(logRepository.save(logMessage))
+                .then();
+        return database.getRequired().transactional(join);
+    }
+
+    // 로그 저장(REQUIRES_NEW)이 실패해도 로그 트랜잭션만 롤백되고 회원은 저장된다.
+    public Mono<Void> joinV2(String username){
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        Mono<Void> join = memberRepository.save(member)
+                .then(logRepository.save(logMessage)
+                        .onErrorResume(RuntimeException.class, e -> {
+                            log.info("log 저장에 실패하였습니다. logMessage -> {}", logMessage.getMessage());
+                            log.info("정상 흐름 반환");
+                            return Mono.empty();
+                        }))
+                .then();
+        return database.getRequired().transactional(join);
+    }
+}
@@ -0,0 +1,40 @@
+package com.lee.springtransaction.reactive;
+
+import com.lee.springtransaction.order.Order;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * OrderRepository의 R2DBC 버전 (orders 테이블)
+ */
+@RequiredArgsConstructor
+public class ReactiveOrderRepository {
+
+    private final ReactiveDatabase database;
+
+    public Mono<Order> save(Order order){
+        return database.getClient().sql("insert into orders (username, pay_status) values (:username, :payStatus)")
+                .bind("username", order.getUsername())
+                .bind("payStatus", order.getPayStatus())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    order.setId(id);
+                    return order;
+                });
+    }
+
+    public Mono<Order> findById(Long id){
+        return database.getClient().sql("select id, username, pay_status from orders where id = :id")
+                .bind("id", id)
+                .map(row -> {
+                    Order order = new Order();
+                    order.setId(row.get("id", Long.class));
+                    order.setUsername(row.get("username", String.class));
+                    order.setPayStatus(row.get("pay_status", String.class));
+                    return order;
+                })
+                .one();
+    }
+}
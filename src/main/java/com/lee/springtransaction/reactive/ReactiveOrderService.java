@@ -0,0 +1,51 @@
+package com.lee.springtransaction.reactive;
+
+import com.lee.springtransaction.order.NotEnoughMoneyException;
+import com.lee.springtransaction.order.Order;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * OrderService.order의 R2DBC 버전
+ * - 시스템 예외(RuntimeException) -> 롤백
+ * - 잔고 부족(NotEnoughMoneyException) -> '대기' 상태로 커밋한 다음 예외를 전달한다.
+ *   TransactionalOperator는 에러가 전달되면 예외 종류와 관계없이 롤백하므로,
+ *   잔고 부족은 트랜잭션 안에서는 값으로 전달하고 커밋 이후에 에러로 바꾼다.
+ * - 결제 판단은 DB를 사용하지 않으므로 저장하기 전에 먼저 수행한다. (OrderService.saveChunk와 같은 순서)
+ * - outbox 이벤트는 기록하지 않는다. (JDBC DB의 outbox_event 와 같은 트랜잭션으로 묶을 수 없다)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveOrderService {
+
+    private final ReactiveDatabase database;
+    private final ReactiveOrderRepository orderRepository;
+
+    public Mono<Order> order(Order order){
+        Mono<Optional<NotEnoughMoneyException>> save = Mono.fromCallable(() -> pay(order))
+                .flatMap(notEnoughMoney -> orderRepository.save(order).thenReturn(notEnoughMoney));
+        return database.getRequired().transactional(save)
+                .flatMap(notEnoughMoney -> notEnoughMoney.isPresent()
+                        ? Mono.<Order>error(notEnoughMoney.get()) : Mono.just(order));
+    }
+
+    // 잔고 부족이면 예외를 던지지 않고 반환한다.
+    private Optional<NotEnoughMoneyException> pay(Order order){
+        log.info("call 결제 프로세스");
+        if(order.getUsername().equals("예외")){
+            log.info("시스템 예외 발생");
+            throw new RuntimeException("시스템 예외");
+        }else if(order.getUsername().equals("잔고부족")){
+            log.info("잔고 부족 비즈니스 예외 발생");
+            order.setPayStatus("대기");
+            return Optional.of(new NotEnoughMoneyException("잔고가 부족합니다."));
+        }
+        // 정상 승인
+        log.info("정상 승인");
+        order.setPayStatus("완료");
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,44 @@
+package com.lee.springtransaction.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 메서드별 재시도 예산 (token bucket)
+ * 호출할 때마다 ratio 만큼 토큰이 쌓이고, 재시도할 때마다 1개를 사용한다.
+ * -> 장애가 길어져서 모든 호출이 실패해도 재시도는 전체 호출의 ratio 비율을 넘지 않는다.(재시도 폭주 방지)
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong tokens;
+
+    public RetryBudget(double ratio, int minTokens) {
+        this.deposit = (long) (ratio * SCALE);
+        this.capacity = Math.max(minTokens, 1) * SCALE;
+        this.tokens = new AtomicLong(capacity);
+    }
+
+    public void onCall(){
+        long current;
+        do {
+            current = tokens.get();
+            if(current >= capacity){
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    public boolean tryRetry(){
+        long current;
+        do {
+            current = tokens.get();
+            if(current < SCALE){
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
@@ -0,0 +1,64 @@
+package com.lee.springtransaction.retry;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 메서드별 재시도 집계
+ * - calls : 호출 수, retries : 재시도 수
+ * - exhausted : 최대 횟수까지 재시도했지만 실패한 수
+ * - budgetRejected : 재시도 예산이 없어서 재시도하지 않은 수
+ */
+public class RetryStats {
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder budgetRejected = new LongAdder();
+
+    public RetryStats(String name) {
+        this.name = name;
+    }
+
+    void call(){
+        calls.increment();
+    }
+
+    void retry(){
+        retries.increment();
+    }
+
+    void exhausted(){
+        exhausted.increment();
+    }
+
+    void budgetRejected(){
+        budgetRejected.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    public long getBudgetRejected() {
+        return budgetRejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return name + " [call=" + getCalls() + ", retry=" + getRetries()
+                + ", exhausted=" + getExhausted() + ", budgetRejected=" + getBudgetRejected() + "]";
+    }
+}
@@ -0,0 +1,55 @@
+package com.lee.springtransaction.retry;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.TransientDataAccessException;
+
+import javax.persistence.LockTimeoutException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PessimisticLockException;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientException;
+import java.util.Set;
+
+/**
+ * 다시 실행하면 성공할 수 있는 예외인지 판단한다.
+ * 예외의 cause를 따라가며 스프링/JPA/JDBC 예외 타입과 SQLState를 확인한다.
+ */
+public abstract class TransientFailures {
+
+    // 40001 -> 직렬화 실패/교착상태(H2, MySQL 등), 40P01 -> PostgreSQL 교착상태, HYT00 -> H2 락 대기 시간 초과
+    private static final Set<String> RETRYABLE_SQL_STATES = Set.of("40001", "40P01", "HYT00");
+
+    private TransientFailures() {
+    }
+
+    public static boolean isRetryable(Throwable ex){
+        // 체크 예외는 비즈니스 예외이므로 재시도하지 않는다.
+        if(!(ex instanceof RuntimeException)){
+            return false;
+        }
+        for (Throwable current = ex; current != null; current = next(current)) {
+            if(current instanceof TransientDataAccessException
+                    || current instanceof ConcurrencyFailureException
+                    || current instanceof PessimisticLockException
+                    || current instanceof LockTimeoutException
+                    || current instanceof OptimisticLockException
+                    || current instanceof SQLTransientException
+                    || current instanceof SQLTransactionRollbackException){
+                return true;
+            }
+            if(current instanceof SQLException){
+                String sqlState = ((SQLException) current).getSQLState();
+                if(sqlState != null && (sqlState.startsWith("40") || RETRYABLE_SQL_STATES.contains(sqlState))){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Throwable next(Throwable current){
+        Throwable cause = current.getCause();
+        return cause == current ? null : cause;
+    }
+}
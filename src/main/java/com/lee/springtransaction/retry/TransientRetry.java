@@ -0,0 +1,32 @@
+package com.lee.springtransaction.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 일시적인 DB 실패(교착상태, 직렬화 실패, 락 대기 시간 초과 등)가 발생하면 메서드 전체를 다시 실행한다.
+ * 트랜잭션 프록시보다 바깥에서 실행되므로 재시도할 때마다 새 트랜잭션으로 시작한다.
+ * 체크 예외(NotEnoughMoneyException 등 비즈니스 예외)는 재시도하지 않는다.
+ * 다시 실행해도 되는 메서드에만 붙인다. -> REQUIRES_NEW 등 별도 트랜잭션으로 먼저 커밋하는 작업이 있으면 붙이지 않는다.
+ *   바깥 트랜잭션 커밋(flush)에서 실패해도 이미 커밋된 작업은 롤백되지 않으므로 재시도할 때마다 중복된다. (MemberService.joinV1)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface TransientRetry {
+
+    /**
+     * 최초 실행을 포함한 최대 실행 횟수
+     */
+    int maxAttempts() default 3;
+
+    /**
+     * 첫 번째 재시도 대기 시간 상한(ms), 재시도마다 2배씩 늘어난다.
+     */
+    long initialBackoffMillis() default 20;
+
+    long maxBackoffMillis() default 500;
+}
@@ -0,0 +1,39 @@
+package com.lee.springtransaction.retry;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+/**
+ * @TransientRetry advisor 등록
+ * - @EnableTransactionManagement 와 같은 infrastructure advisor 로 등록해야 트랜잭션 프록시에 함께 적용된다.
+ * - HIGHEST_PRECEDENCE -> 트랜잭션 인터셉터 바깥에서 실행
+ * retry.enabled=false 로 끌 수 있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "retry.enabled", havingValue = "true", matchIfMissing = true)
+public class TransientRetryConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static TransientRetryInterceptor transientRetryInterceptor(@Value("${retry.budget.ratio:0.2}") double budgetRatio,
+                                                                      @Value("${retry.budget.min-tokens:10}") int budgetMinTokens){
+        return new TransientRetryInterceptor(budgetRatio, budgetMinTokens);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor transientRetryAdvisor(TransientRetryInterceptor transientRetryInterceptor){
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(TransientRetry.class), transientRetryInterceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
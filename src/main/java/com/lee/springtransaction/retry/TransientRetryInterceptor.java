@@ -0,0 +1,152 @@
+package com.lee.springtransaction.retry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @TransientRetry 메서드를 트랜잭션 바깥에서 다시 실행한다.
+ * - 트랜잭션 인터셉터보다 먼저(바깥에서) 실행된다. -> 재시도마다 새 트랜잭션 (롤백된 트랜잭션을 재사용하지 않는다)
+ * - 이미 트랜잭션 안에서 호출되었으면 재시도하지 않는다.
+ *   -> 내부 메서드만 다시 실행하면 외부 트랜잭션은 이미 rollback-only 이거나 락을 잡은 상태이기 때문에 의미가 없다.
+ *      재시도는 가장 바깥 트랜잭션 경계에서만 한다.
+ * - 대기 시간은 지수 백오프 + full jitter -> random(0, min(max, initial * 2^(n-1)))
+ * - 메서드별 재시도 예산(RetryBudget)을 넘으면 재시도하지 않고 예외를 그대로 던진다.
+ */
+@Slf4j
+public class TransientRetryInterceptor implements MethodInterceptor {
+
+    // 현재 쓰레드가 실행 중인 시도 번호 (1 -> 최초 실행)
+    private static final ThreadLocal<Integer> ATTEMPT = new ThreadLocal<>();
+
+    private final double budgetRatio;
+    private final int budgetMinTokens;
+    private final ConcurrentMap<Method, MethodRetry> methods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RetryStats> stats = new ConcurrentHashMap<>();
+
+    public TransientRetryInterceptor(double budgetRatio, int budgetMinTokens) {
+        this.budgetRatio = budgetRatio;
+        this.budgetMinTokens = budgetMinTokens;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodRetry retry = methodRetry(invocation);
+        if(retry == null || TransactionSynchronizationManager.isActualTransactionActive()
+                || !(invocation instanceof ProxyMethodInvocation)){
+            return invocation.proceed();
+        }
+
+        retry.stats.call();
+        retry.budget.onCall();
+        ProxyMethodInvocation proxyInvocation = (ProxyMethodInvocation) invocation;
+        try {
+            return proceedWithRetry(proxyInvocation, retry);
+        }finally {
+            ATTEMPT.remove();
+        }
+    }
+
+    /**
+     * 재시도 중인 @TransientRetry 메서드 안에서 호출하면 시도 번호, 밖에서는 0
+     * -> 이전 시도가 인자 객체에 남긴 상태(발급받은 id 등)를 정리할 때 사용한다.
+     */
+    public static int currentAttempt(){
+        Integer attempt = ATTEMPT.get();
+        return attempt == null ? 0 : attempt;
+    }
+
+    private Object proceedWithRetry(ProxyMethodInvocation proxyInvocation, MethodRetry retry) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            ATTEMPT.set(attempt);
+            try {
+                // proceed()는 한 번만 호출할 수 있으므로 시도마다 복제해서 나머지 인터셉터 체인(트랜잭션 포함)을 다시 실행한다.
+                return proxyInvocation.invocableClone().proceed();
+            }catch (Throwable e){
+                if(!TransientFailures.isRetryable(e)){
+                    throw e;
+                }
+                if(attempt >= retry.annotation.maxAttempts()){
+                    retry.stats.exhausted();
+                    log.warn("재시도 횟수 초과 method -> {}, attempts -> {}", retry.stats.getName(), attempt);
+                    throw e;
+                }
+                if(!retry.budget.tryRetry()){
+                    retry.stats.budgetRejected();
+                    log.warn("재시도 예산 부족 method -> {}", retry.stats.getName());
+                    throw e;
+                }
+                retry.stats.retry();
+                long backoffMillis = backoffMillis(retry.annotation, attempt);
+                log.info("일시적 실패, 재시도 method -> {}, attempt -> {}, backoff -> {}ms, cause -> {}",
+                        retry.stats.getName(), attempt, backoffMillis, e.toString());
+                TimeUnit.MILLISECONDS.sleep(backoffMillis);
+            }
+        }
+    }
+
+    public RetryStats stats(String name){
+        return stats.get(name);
+    }
+
+    public Collection<RetryStats> getAll(){
+        return Collections.unmodifiableCollection(stats.values());
+    }
+
+    static long backoffMillis(TransientRetry annotation, int attempt){
+        long ceiling = annotation.initialBackoffMillis() << Math.min(attempt - 1, 30);
+        if(ceiling <= 0 || ceiling > annotation.maxBackoffMillis()){
+            ceiling = annotation.maxBackoffMillis();
+        }
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private MethodRetry methodRetry(MethodInvocation invocation){
+        Method method = invocation.getMethod();
+        MethodRetry found = methods.get(method);
+        if(found != null){
+            return found == MethodRetry.NONE ? null : found;
+        }
+        found = methods.computeIfAbsent(method, m -> create(invocation));
+        return found == MethodRetry.NONE ? null : found;
+    }
+
+    private MethodRetry create(MethodInvocation invocation){
+        Class<?> targetClass = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : null;
+        Method specificMethod = AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
+        TransientRetry annotation = AnnotationUtils.findAnnotation(specificMethod, TransientRetry.class);
+        if(annotation == null){
+            return MethodRetry.NONE;
+        }
+        String name = specificMethod.getDeclaringClass().getName() + "." + specificMethod.getName();
+        RetryStats methodStats = stats.computeIfAbsent(name, RetryStats::new);
+        return new MethodRetry(annotation, new RetryBudget(budgetRatio, budgetMinTokens), methodStats);
+    }
+
+    private static class MethodRetry {
+
+        static final MethodRetry NONE = new MethodRetry(null, null, null);
+
+        final TransientRetry annotation;
+        final RetryBudget budget;
+        final RetryStats stats;
+
+        MethodRetry(TransientRetry annotation, RetryBudget budget, RetryStats stats) {
+            this.annotation = annotation;
+            this.budget = budget;
+            this.stats = stats;
+        }
+    }
+}
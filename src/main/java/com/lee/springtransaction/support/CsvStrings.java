@@ -0,0 +1,40 @@
+package com.lee.springtransaction.support;
+
+/**
+ * CSV 필드 값 이스케이프 (RFC 4180)
+ * 구분자, 따옴표, 줄바꿈이 있으면 따옴표로 감싸고 따옴표는 두 번 쓴다.
+ */
+public abstract class CsvStrings {
+
+    private CsvStrings() {
+    }
+
+    public static void appendField(StringBuilder sb, String value){
+        if(value == null){
+            return;
+        }
+        if(!needsQuote(value)){
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"'){
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private static boolean needsQuote(String value){
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == ',' || c == '"' || c == '\n' || c == '\r'){
+                return true;
+            }
+        }
+        return false;
+    }
+}
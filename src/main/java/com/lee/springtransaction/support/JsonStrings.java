@@ -0,0 +1,44 @@
+package com.lee.springtransaction.support;
+
+/**
+ * JSON 문자열 값 이스케이프 (jackson 의존성 없이 간단한 payload, NDJSON을 만들 때 사용)
+ */
+public abstract class JsonStrings {
+
+    private JsonStrings() {
+    }
+
+    public static String quote(String value){
+        if(value == null){
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        appendQuoted(sb, value);
+        return sb.toString();
+    }
+
+    public static void appendQuoted(StringBuilder sb, String value){
+        if(value == null){
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if(c < 0x20){
+                        sb.append(String.format("\\u%04x", (int) c));
+                    }else{
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
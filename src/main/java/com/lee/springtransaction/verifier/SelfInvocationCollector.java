@@ -0,0 +1,48 @@
+package com.lee.springtransaction.verifier;
+
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 클래스 바이트코드에서 메서드별로 같은 클래스의 인스턴스 메서드를 호출하는 지점을 수집한다.
+ * key, value -> 메서드 이름 + 디스크립터 (예: internal()V)
+ * 호출 대상 객체가 this 인지는 확인하지 않는다. (같은 클래스의 다른 인스턴스 호출도 포함될 수 있다)
+ */
+class SelfInvocationCollector extends ClassVisitor {
+
+    private final String internalName;
+    private final Map<String, List<String>> calls = new LinkedHashMap<>();
+
+    SelfInvocationCollector(String internalName) {
+        super(SpringAsmInfo.ASM_VERSION);
+        this.internalName = internalName;
+    }
+
+    Map<String, List<String>> getCalls() {
+        return calls;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        if((access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_STATIC)) != 0){
+            return null;
+        }
+        String caller = name + descriptor;
+        return new MethodVisitor(SpringAsmInfo.ASM_VERSION) {
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String calleeName, String calleeDescriptor, boolean isInterface) {
+                if((opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKESPECIAL)
+                        && owner.equals(internalName) && !calleeName.equals("<init>")){
+                    calls.computeIfAbsent(caller, key -> new ArrayList<>()).add(calleeName + calleeDescriptor);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.lee.springtransaction.verifier;
+
+import lombok.Getter;
+
+/**
+ * @Transactional이 프록시에 의해 무시되는 사용 방식
+ */
+@Getter
+public class TransactionalMisuse {
+
+    public enum Kind {
+        // 같은 클래스의 @Transactional 메서드를 내부 호출 -> 프록시를 거치지 않는다. (InternalCallV1Test)
+        SELF_INVOCATION,
+        // public이 아닌 메서드 -> 트랜잭션 속성을 읽지 않는다.
+        NON_PUBLIC,
+        // final 메서드 -> CGLIB 프록시가 재정의할 수 없다.
+        FINAL,
+        // @PostConstruct -> 프록시가 적용되기 전에 target에서 호출된다. (InitTransactionTest)
+        POST_CONSTRUCT
+    }
+
+    private final Kind kind;
+    private final String className;
+    private final String methodName;
+    private final String detail;
+
+    public TransactionalMisuse(Kind kind, String className, String methodName, String detail) {
+        this.kind = kind;
+        this.className = className;
+        this.methodName = methodName;
+        this.detail = detail;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + className + "." + methodName + " -> " + detail;
+    }
+}
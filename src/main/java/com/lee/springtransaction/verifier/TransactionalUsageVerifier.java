@@ -0,0 +1,192 @@
+package com.lee.springtransaction.verifier;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.Type;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * 시작 시점에 빈 클래스를 검사해서 @Transactional이 무시되는 사용 방식을 찾는다.
+ * - 내부 호출(self-invocation) : 호출하는 메서드와 트랜잭션 속성이 다른 @Transactional 메서드를 같은 클래스에서 호출
+ *   (호출하는 메서드에 트랜잭션이 없거나 REQUIRES_NEW, readOnly 등 속성이 다르면 적용되지 않는다)
+ * - public이 아닌 메서드, final 메서드에 선언한 @Transactional
+ * - @PostConstruct와 함께 선언한 @Transactional
+ *
+ * mode -> off : 검사하지 않음, warn : 로그만 남김, fail : 애플리케이션 시작 실패
+ *
+ * 빈이 많아도 빠르게 끝나도록
+ * - @Transactional이 없는 클래스는 바이트코드를 읽지 않는다.
+ * - 클래스별 결과를 캐시한다. (같은 JVM에서 컨텍스트를 여러 번 띄우는 테스트도 한 번만 검사)
+ * - 클래스를 병렬로 검사한다.
+ */
+@Slf4j
+public class TransactionalUsageVerifier implements SmartInitializingSingleton {
+
+    public enum Mode {
+        OFF, WARN, FAIL
+    }
+
+    private static final ConcurrentMap<Class<?>, List<TransactionalMisuse>> CACHE = new ConcurrentHashMap<>();
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final Mode mode;
+    private final TransactionAttributeSource attributeSource = new AnnotationTransactionAttributeSource();
+    private volatile List<TransactionalMisuse> violations = Collections.emptyList();
+
+    public TransactionalUsageVerifier(ConfigurableListableBeanFactory beanFactory, String mode) {
+        this.beanFactory = beanFactory;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if(mode == Mode.OFF){
+            return;
+        }
+        long start = System.nanoTime();
+        Set<Class<?>> beanClasses = beanClasses();
+        List<TransactionalMisuse> found = beanClasses.parallelStream()
+                .map(this::scan)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        violations = Collections.unmodifiableList(found);
+        log.info("@Transactional 사용 검사 classes -> {}, violations -> {}, {}ms",
+                beanClasses.size(), found.size(), (System.nanoTime() - start) / 1_000_000);
+
+        if(found.isEmpty()){
+            return;
+        }
+        for (TransactionalMisuse misuse : found) {
+            log.warn("@Transactional이 적용되지 않습니다. {}", misuse);
+        }
+        if(mode == Mode.FAIL){
+            throw new IllegalStateException("@Transactional이 적용되지 않는 메서드가 있습니다. " + found);
+        }
+    }
+
+    public List<TransactionalMisuse> getViolations() {
+        return violations;
+    }
+
+    public List<TransactionalMisuse> scan(Class<?> beanClass){
+        return CACHE.computeIfAbsent(beanClass, this::inspect);
+    }
+
+    private Set<Class<?>> beanClasses(){
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> type = beanFactory.getType(beanName, false);
+            if(type == null || Proxy.isProxyClass(type)){
+                continue;
+            }
+            Class<?> userClass = ClassUtils.getUserClass(type);
+            if(AnnotationUtils.isCandidateClass(userClass, Transactional.class)){
+                classes.add(userClass);
+            }
+        }
+        return classes;
+    }
+
+    private List<TransactionalMisuse> inspect(Class<?> beanClass){
+        List<TransactionalMisuse> found = new ArrayList<>();
+        boolean transactional = AnnotatedElementUtils.hasAnnotation(beanClass, Transactional.class);
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(beanClass, ReflectionUtils.USER_DECLARED_METHODS)) {
+            if(method.getDeclaringClass() == Object.class || !AnnotatedElementUtils.hasAnnotation(method, Transactional.class)){
+                continue;
+            }
+            transactional = true;
+            int modifiers = method.getModifiers();
+            if(!Modifier.isPublic(modifiers)){
+                found.add(misuse(TransactionalMisuse.Kind.NON_PUBLIC, beanClass, method, "public 메서드가 아닙니다."));
+            }else if(Modifier.isFinal(modifiers)){
+                found.add(misuse(TransactionalMisuse.Kind.FINAL, beanClass, method, "final 메서드는 프록시가 재정의할 수 없습니다."));
+            }
+            if(AnnotatedElementUtils.hasAnnotation(method, PostConstruct.class)){
+                found.add(misuse(TransactionalMisuse.Kind.POST_CONSTRUCT, beanClass, method,
+                        "초기화 메서드는 프록시가 아닌 target에서 호출됩니다. ApplicationReadyEvent를 사용하세요."));
+            }
+        }
+        if(transactional){
+            found.addAll(selfInvocations(beanClass));
+        }
+        return Collections.unmodifiableList(found);
+    }
+
+    private List<TransactionalMisuse> selfInvocations(Class<?> beanClass){
+        Map<String, List<String>> calls = readCalls(beanClass);
+        if(calls.isEmpty()){
+            return Collections.emptyList();
+        }
+        // 이름 + 디스크립터 -> 메서드 (하위 클래스에서 재정의한 메서드 우선)
+        Map<String, Method> methods = new HashMap<>();
+        ReflectionUtils.doWithMethods(beanClass,
+                method -> methods.putIfAbsent(method.getName() + Type.getMethodDescriptor(method), method),
+                ReflectionUtils.USER_DECLARED_METHODS);
+
+        List<TransactionalMisuse> found = new ArrayList<>();
+        for (Map.Entry<String, List<String>> call : calls.entrySet()) {
+            Method caller = methods.get(call.getKey());
+            TransactionAttribute callerAttribute = caller != null ? attributeSource.getTransactionAttribute(caller, beanClass) : null;
+            for (String calleeKey : new LinkedHashSet<>(call.getValue())) {
+                Method callee = methods.get(calleeKey);
+                if(callee == null){
+                    continue;
+                }
+                TransactionAttribute calleeAttribute = attributeSource.getTransactionAttribute(callee, beanClass);
+                if(calleeAttribute != null && !Objects.equals(callerAttribute, calleeAttribute)){
+                    String callerName = caller != null ? caller.getName() : call.getKey();
+                    found.add(misuse(TransactionalMisuse.Kind.SELF_INVOCATION, beanClass, callee,
+                            callerName + "()에서 내부 호출 -> " + calleeAttribute + " 가 적용되지 않습니다."));
+                }
+            }
+        }
+        return found;
+    }
+
+    private Map<String, List<String>> readCalls(Class<?> beanClass){
+        String resource = ClassUtils.getClassFileName(beanClass);
+        try (InputStream in = beanClass.getResourceAsStream(resource)) {
+            if(in == null){
+                return Collections.emptyMap();
+            }
+            SelfInvocationCollector collector = new SelfInvocationCollector(Type.getInternalName(beanClass));
+            new ClassReader(in).accept(collector, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            return collector.getCalls();
+        }catch (IOException | RuntimeException e){
+            log.debug("바이트코드를 읽을 수 없습니다. class -> {}", beanClass.getName(), e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private static TransactionalMisuse misuse(TransactionalMisuse.Kind kind, Class<?> beanClass, Method method, String detail){
+        return new TransactionalMisuse(kind, beanClass.getName(), method.getName(), detail);
+    }
+}
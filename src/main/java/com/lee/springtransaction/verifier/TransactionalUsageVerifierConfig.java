@@ -0,0 +1,19 @@
+package com.lee.springtransaction.verifier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * transaction.verifier.mode -> off | warn | fail (기본 warn)
+ */
+@Configuration
+public class TransactionalUsageVerifierConfig {
+
+    @Bean
+    public TransactionalUsageVerifier transactionalUsageVerifier(ConfigurableListableBeanFactory beanFactory,
+                                                                 @Value("${transaction.verifier.mode:warn}") String mode){
+        return new TransactionalUsageVerifier(beanFactory, mode);
+    }
+}
@@ -0,0 +1,44 @@
+package com.lee.springtransaction.attribute;
+
+import com.lee.springtransaction.propagation.Log;
+import com.lee.springtransaction.propagation.LogRepository;
+import com.lee.springtransaction.propagation.MemberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PrecomputedTransactionAttributeSourceTest {
+
+    @Autowired TransactionAttributeSource transactionAttributeSource;
+    @Autowired MemberService memberService;
+
+    @Test
+    void frozenAtStartup() throws NoSuchMethodException {
+        // given
+        assertThat(transactionAttributeSource).isInstanceOf(PrecomputedTransactionAttributeSource.class);
+        PrecomputedTransactionAttributeSource source = (PrecomputedTransactionAttributeSource) transactionAttributeSource;
+        assertThat(source.isFrozen()).isTrue();
+        long misses = source.getMisses();
+
+        // when
+        Method joinV1 = MemberService.class.getMethod("joinV1", String.class);
+        Method logSave = LogRepository.class.getMethod("save", Log.class);
+        TransactionAttribute joinAttribute = source.getTransactionAttribute(joinV1, MemberService.class);
+        TransactionAttribute logAttribute = source.getTransactionAttribute(logSave, LogRepository.class);
+        memberService.joinV1("attributeTable_frozenAtStartup");
+
+        // then -> 테이블에서 찾는다. 이름은 미리 계산되어 있다.
+        assertThat(joinAttribute.getPropagationBehavior()).isEqualTo(TransactionDefinition.PROPAGATION_REQUIRED);
+        assertThat(logAttribute.getPropagationBehavior()).isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        assertThat(joinAttribute.getName()).isEqualTo(MemberService.class.getName() + ".joinV1");
+        assertThat(source.getMisses()).isEqualTo(misses);
+    }
+}
@@ -0,0 +1,103 @@
+package com.lee.springtransaction.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LookupCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Optional<String> load(String key){
+        loads.incrementAndGet();
+        return Optional.of("db-" + key);
+    }
+
+    @Test
+    void hit(){
+        LookupCache<String, String> cache = new LookupCache<>(10, 1, TimeUnit.MINUTES);
+
+        assertThat(cache.get("a", this::load)).contains("db-a");
+        assertThat(cache.get("a", this::load)).contains("db-a");
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    /**
+     * 조회 도중 다른 키가 무효화되어도 조회 결과는 캐시된다.
+     */
+    @Test
+    void evictOtherKey_duringLoad_cached(){
+        LookupCache<String, String> cache = new LookupCache<>(10, 1, TimeUnit.MINUTES);
+
+        cache.get("a", key -> {
+            cache.evict("b");
+            return load(key);
+        });
+
+        assertThat(cache.size()).isEqualTo(1);
+        cache.get("a", this::load);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    /**
+     * 조회 도중 같은 키가 무효화되면 조회 결과(무효화 이전 값일 수 있다)는 캐시하지 않는다.
+     */
+    @Test
+    void evictSameKey_duringLoad_notCached(){
+        LookupCache<String, String> cache = new LookupCache<>(10, 1, TimeUnit.MINUTES);
+
+        cache.get("a", key -> {
+            cache.evict(key);
+            return load(key);
+        });
+
+        assertThat(cache.size()).isZero();
+        cache.get("a", this::load);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    /**
+     * 조회 도중 넣어진 값은 조회 결과로 덮어쓰지 않는다.
+     */
+    @Test
+    void putDuringLoad_notOverwritten(){
+        LookupCache<String, String> cache = new LookupCache<>(10, 1, TimeUnit.MINUTES);
+
+        cache.get("a", key -> {
+            cache.putAfterCommit(key, "new-a");
+            return load(key);
+        });
+
+        assertThat(cache.get("a", this::load)).contains("new-a");
+    }
+
+    /**
+     * 크기를 넘으면 오래 조회되지 않은 항목부터 지운다.
+     */
+    @Test
+    void maxSize_leastRecentlyUsedRemoved(){
+        LookupCache<String, String> cache = new LookupCache<>(10, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 10; i++) {
+            cache.get("key" + i, this::load);
+        }
+        // key0 다시 조회 -> 가장 최근에 조회한 항목
+        cache.get("key0", this::load);
+
+        // when -> 11번째 항목
+        cache.get("key10", this::load);
+
+        // then
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+        int before = loads.get();
+        cache.get("key0", this::load);
+        cache.get("key10", this::load);
+        assertThat(loads.get()).isEqualTo(before);
+        cache.get("key1", this::load);
+        assertThat(loads.get()).isEqualTo(before + 1);
+    }
+}
@@ -0,0 +1,87 @@
+package com.lee.springtransaction.datasource;
+
+import com.lee.springtransaction.propagation.Log;
+import com.lee.springtransaction.propagation.LogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 외부 트랜잭션이 커넥션을 가진 상태에서 LogRepository.save(REQUIRES_NEW) -> 커넥션 중첩 깊이 2
+ * max-nested-share=0 -> 중첩 커넥션을 허용하지 않으므로 풀에서 기다리지 않고 바로 실패한다.
+ */
+@SpringBootTest(properties = {
+        "transaction.connection-guard.enabled=true",
+        "transaction.connection-guard.max-nested-share=0"
+})
+class ConnectionNestingTest {
+
+    @Autowired ConnectionNestingMonitor monitor;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired DataSource dataSource;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired LogRepository logRepository;
+
+    @Test
+    void depth(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(ConnectionNestingMonitor.currentDepth()).isZero();
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+            assertThat(ConnectionNestingMonitor.currentDepth()).isEqualTo(1);
+        });
+
+        assertThat(ConnectionNestingMonitor.currentDepth()).isZero();
+        assertThat(monitor.getMaxDepth()).isGreaterThanOrEqualTo(1);
+        assertThat(monitor.getPoolWait().getCount()).isPositive();
+    }
+
+    /**
+     * 다른 쓰레드에서 close 해도 커넥션을 가져온 쓰레드의 깊이가 줄어든다.
+     */
+    @Test
+    void release_onOtherThread() throws Exception {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            // 첫 SQL 실행 -> 실제 커넥션 획득
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("select 1");
+            }
+            assertThat(ConnectionNestingMonitor.currentDepth()).isEqualTo(1);
+        }finally {
+            CompletableFuture.runAsync(() -> DataSourceUtils.releaseConnection(connection, dataSource)).get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(ConnectionNestingMonitor.currentDepth()).isZero();
+    }
+
+    @Test
+    void guard_failFast(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long rejections = monitor.getGuardRejections();
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            // 외부 트랜잭션이 실제 커넥션을 가져온다.
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+            logRepository.save(new Log("connectionGuard_failFast"));
+        })).hasRootCauseInstanceOf(NestedConnectionLimitException.class);
+
+        assertThat(monitor.getGuardRejections()).isEqualTo(rejections + 1);
+        assertThat(monitor.getNestedInUse()).isZero();
+        assertThat(ConnectionNestingMonitor.currentDepth()).isZero();
+    }
+}
@@ -0,0 +1,54 @@
+package com.lee.springtransaction.datasource;
+
+import com.lee.springtransaction.propagation.Log;
+import com.lee.springtransaction.propagation.LogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * lazy-connection을 꺼도 dataSource 빈이 직접 추적된다. -> guard가 그대로 동작한다.
+ */
+@SpringBootTest(properties = {
+        "transaction.lazy-connection.enabled=false",
+        "transaction.connection-guard.enabled=true",
+        "transaction.connection-guard.max-nested-share=0"
+})
+class ConnectionNestingWithoutLazyTest {
+
+    @Autowired ConnectionNestingMonitor monitor;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired DataSource dataSource;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired LogRepository logRepository;
+
+    @Test
+    void tracked(){
+        assertThat(dataSource).isNotInstanceOf(LazyConnectionDataSourceProxy.class);
+        assertThat(ConnectionNestingMonitor.isTracked(dataSource)).isTrue();
+    }
+
+    @Test
+    void guard_failFast(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long rejections = monitor.getGuardRejections();
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+            assertThat(ConnectionNestingMonitor.currentDepth()).isEqualTo(1);
+            logRepository.save(new Log("connectionGuard_withoutLazy"));
+        })).hasRootCauseInstanceOf(NestedConnectionLimitException.class);
+
+        assertThat(monitor.getGuardRejections()).isEqualTo(rejections + 1);
+        assertThat(ConnectionNestingMonitor.currentDepth()).isZero();
+    }
+}
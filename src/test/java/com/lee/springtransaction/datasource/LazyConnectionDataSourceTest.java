@@ -0,0 +1,48 @@
+package com.lee.springtransaction.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class LazyConnectionDataSourceTest {
+
+    @Autowired DataSource dataSource;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void proxied(){
+        assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+    }
+
+    /**
+     * 트랜잭션이 시작되어도 SQL을 실행하기 전까지는 풀의 커넥션을 사용하지 않는다.
+     */
+    @Test
+    void connectionAcquiredOnFirstStatement() throws SQLException {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // 트랜잭션 시작 -> 아직 커넥션 없음
+            assertThat(pool.getActiveConnections()).isZero();
+
+            // 첫 SQL 실행 -> 커넥션 획득
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+            assertThat(pool.getActiveConnections()).isEqualTo(1);
+        });
+        assertThat(pool.getActiveConnections()).isZero();
+    }
+}
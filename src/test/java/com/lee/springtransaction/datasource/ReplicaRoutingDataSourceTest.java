@@ -0,0 +1,75 @@
+package com.lee.springtransaction.datasource;
+
+import com.lee.springtransaction.propagation.MemberRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 같은 H2 메모리 DB를 primary, replica 두 커넥션 풀로 연결한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1"
+})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired DataSource dataSource;
+    @Autowired @Qualifier("primaryDataSource") HikariDataSource primaryDataSource;
+    @Autowired @Qualifier("replicaDataSource") HikariDataSource replicaDataSource;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    void readOnlyTransaction_usesReplica(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // 캐시에 없는 이름 -> DB 조회
+            assertThat(memberRepository.find("readOnlyTransaction_usesReplica")).isEmpty();
+            assertThat(replicaDataSource.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+            assertThat(primaryDataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+        });
+    }
+
+    /**
+     * 읽기 전용 트랜잭션(replica)에서 조회한 결과는 캐시하지 않는다.
+     * -> replica가 늦게 반영되어도 트랜잭션 밖 조회는 primary에서 최신 값을 읽는다.
+     */
+    @Test
+    void readOnlyTransaction_doesNotCache(){
+        // given -> replica 조회에서 없음
+        String username = "readOnlyTransaction_doesNotCache";
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> assertThat(memberRepository.find(username)).isEmpty());
+
+        // when -> 캐시 무효화 없이 primary에 저장
+        new JdbcTemplate(primaryDataSource).update("insert into member (id, username) values (?, ?)", -1L, username);
+
+        // then
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    @Test
+    void writeTransaction_usesPrimary(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+            assertThat(primaryDataSource.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+            assertThat(replicaDataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+        });
+    }
+}
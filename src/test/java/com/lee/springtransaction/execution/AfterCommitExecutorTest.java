@@ -0,0 +1,143 @@
+package com.lee.springtransaction.execution;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AfterCommitExecutorTest {
+
+    @Autowired AfterCommitExecutor afterCommitExecutor;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void commit() throws InterruptedException {
+        // given
+        List<String> executed = new CopyOnWriteArrayList<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String caller = Thread.currentThread().getName();
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            afterCommitExecutor.execute("commit", () -> executed.add(Thread.currentThread().getName()));
+            // 커밋 전에는 실행하지 않는다.
+            assertThat(executed).isEmpty();
+        });
+
+        // then -> 커밋 이후 작업 쓰레드에서 실행
+        assertThat(afterCommitExecutor.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).hasSize(1);
+        assertThat(executed.get(0)).isNotEqualTo(caller);
+    }
+
+    @Test
+    void rollback() throws InterruptedException {
+        // given
+        List<String> executed = new CopyOnWriteArrayList<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long discarded = afterCommitExecutor.getDiscardedCount();
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            afterCommitExecutor.execute("rollback", () -> executed.add("rollback"));
+            status.setRollbackOnly();
+        });
+
+        // then -> 버린다.
+        assertThat(afterCommitExecutor.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).isEmpty();
+        assertThat(afterCommitExecutor.getDiscardedCount()).isEqualTo(discarded + 1);
+    }
+
+    /**
+     * 트랜잭션 하나에서 같은 key로 여러 번 등록해도 커밋 후 한 번만 실행한다.
+     */
+    @Test
+    void executeOnce() throws InterruptedException {
+        // given
+        List<String> executed = new CopyOnWriteArrayList<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                afterCommitExecutor.executeOnce("executeOnce", () -> executed.add("first"));
+            }
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                afterCommitExecutor.executeOnce("executeOnce", () -> executed.add("second")));
+
+        // then -> 트랜잭션마다 한 번
+        assertThat(afterCommitExecutor.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).containsExactly("first", "second");
+    }
+
+    /**
+     * REQUIRES_NEW 에서 등록한 작업은 신규 트랜잭션이 커밋될 때 실행되고, 외부 트랜잭션 롤백과 관계없다.
+     */
+    @Test
+    void requiresNew() throws InterruptedException {
+        // given
+        List<String> executed = new CopyOnWriteArrayList<>();
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // when
+        outer.executeWithoutResult(status -> {
+            afterCommitExecutor.execute("requiresNew", () -> executed.add("outer"));
+            inner.executeWithoutResult(innerStatus ->
+                    afterCommitExecutor.execute("requiresNew", () -> executed.add("inner")));
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertThat(afterCommitExecutor.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).containsExactly("inner");
+    }
+
+    /**
+     * 같은 key의 작업은 커밋 순서대로 실행된다.
+     */
+    @Test
+    void orderedPerKey() throws InterruptedException {
+        // given
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            int sequence = i;
+            transactionTemplate.executeWithoutResult(status ->
+                    afterCommitExecutor.execute("orderedPerKey", () -> executed.add(sequence)));
+        }
+
+        // then
+        assertThat(afterCommitExecutor.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).isEqualTo(IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    void outsideTransaction() throws InterruptedException {
+        // given
+        List<String> executed = new CopyOnWriteArrayList<>();
+
+        // when -> 바로 작업 쓰레드에 넘긴다.
+        afterCommitExecutor.execute("outsideTransaction", () -> executed.add("outside"));
+
+        // then
+        assertThat(afterCommitExecutor.awaitIdle(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).containsExactly("outside");
+    }
+}
@@ -0,0 +1,82 @@
+package com.lee.springtransaction.execution;
+
+import com.lee.springtransaction.order.NotEnoughMoneyException;
+import com.lee.springtransaction.order.Order;
+import com.lee.springtransaction.order.OrderService;
+import com.lee.springtransaction.propagation.MemberRepository;
+import com.lee.springtransaction.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 요청 하나당 쓰레드 하나로 join, order를 대량으로 동시에 실행한다.
+ * 동시 트랜잭션 수는 허용 개수를 넘지 않고, 쓰레드에 트랜잭션 상태가 남지 않아야 한다.
+ */
+@Slf4j
+@SpringBootTest
+class BoundedTransactionExecutorTest {
+
+    private static final int REQUESTS = 500;
+
+    @Autowired BoundedTransactionExecutor executor;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired OrderService orderService;
+
+    @Test
+    void highFanOut() throws Exception {
+        // given
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < REQUESTS; i++) {
+            String username = "fanOut_" + i;
+            futures.add(executor.submit(() -> {
+                // 새 쓰레드에는 호출한 쪽의 트랜잭션이 전파되지 않는다.
+                assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+                memberService.joinV1(username);
+            }));
+            futures.add(executor.submit(() -> {
+                Order order = new Order();
+                order.setUsername(username);
+                orderService.order(order);
+                return order;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+
+        // then
+        log.info("virtualThreads -> {}, peak -> {}", executor.isVirtualThreads(), executor.getPeakConcurrentTransactions());
+        assertThat(executor.getPeakConcurrentTransactions()).isLessThanOrEqualTo(executor.getMaxConcurrentTransactions());
+        assertThat(executor.getContextLeaks()).isZero();
+        assertThat(memberRepository.find("fanOut_0")).isPresent();
+        assertThat(memberRepository.find("fanOut_" + (REQUESTS - 1))).isPresent();
+    }
+
+    @Test
+    void exceptionIsReturned(){
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        CompletableFuture<Order> future = executor.submit(() -> {
+            orderService.order(order);
+            return order;
+        });
+
+        assertThat(future).failsWithin(10, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(NotEnoughMoneyException.class);
+        assertThat(executor.getContextLeaks()).isZero();
+    }
+}
@@ -0,0 +1,83 @@
+package com.lee.springtransaction.execution;
+
+import com.lee.springtransaction.propagation.Member;
+import com.lee.springtransaction.propagation.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "transaction.group-commit.enabled=true",
+        "transaction.group-commit.window-ms=50"
+})
+class GroupCommitExecutorTest {
+
+    private static final int UNITS = 100;
+
+    @Autowired GroupCommitExecutor groupCommitExecutor;
+    @Autowired MemberRepository memberRepository;
+
+    /**
+     * 동시에 들어온 작업을 묶어서 커밋한다. -> 커밋 수 < 작업 수
+     */
+    @Test
+    void coalesce() throws Exception {
+        // given
+        long units = groupCommitExecutor.getUnits();
+        long commits = groupCommitExecutor.getCommits();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < UNITS; i++) {
+            String username = "groupCommit_" + i;
+            futures.add(groupCommitExecutor.submit(() -> memberRepository.save(new Member(username))));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        // then
+        log.info("units -> {}, batches -> {}, commits -> {}", groupCommitExecutor.getUnits(),
+                groupCommitExecutor.getBatches(), groupCommitExecutor.getCommits());
+        assertThat(groupCommitExecutor.getUnits() - units).isEqualTo(UNITS);
+        assertThat(groupCommitExecutor.getCommits() - commits).isLessThan(UNITS);
+        assertThat(memberRepository.find("groupCommit_0")).isPresent();
+        assertThat(memberRepository.find("groupCommit_" + (UNITS - 1))).isPresent();
+    }
+
+    /**
+     * 묶음 안의 작업 하나가 실패하면 한 건씩 다시 실행한다. -> 실패한 작업만 롤백
+     */
+    @Test
+    void failureIsolated() throws Exception {
+        // given
+        long replays = groupCommitExecutor.getReplays();
+
+        // when
+        CompletableFuture<?> before = groupCommitExecutor.submit(() -> memberRepository.save(new Member("groupCommit_before")));
+        CompletableFuture<?> bad = groupCommitExecutor.submit(() -> {
+            memberRepository.save(new Member("groupCommit_bad"));
+            throw new IllegalStateException("작업 실패");
+        });
+        CompletableFuture<?> after = groupCommitExecutor.submit(() -> memberRepository.save(new Member("groupCommit_after")));
+
+        // then
+        before.get(10, TimeUnit.SECONDS);
+        after.get(10, TimeUnit.SECONDS);
+        assertThat(bad).failsWithin(10, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+        assertThat(groupCommitExecutor.getReplays()).isGreaterThan(replays);
+        assertThat(memberRepository.find("groupCommit_before")).isPresent();
+        assertThat(memberRepository.find("groupCommit_after")).isPresent();
+        assertThat(memberRepository.find("groupCommit_bad")).isEmpty();
+    }
+}
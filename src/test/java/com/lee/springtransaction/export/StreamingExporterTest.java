@@ -0,0 +1,79 @@
+package com.lee.springtransaction.export;
+
+import com.lee.springtransaction.propagation.LogRepository;
+import com.lee.springtransaction.propagation.Member;
+import com.lee.springtransaction.propagation.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class StreamingExporterTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+
+    @TempDir Path tempDir;
+
+    @Test
+    void exportMembers_ndjson() throws IOException {
+        // given
+        memberRepository.save(new Member("export_ndjson"));
+        memberRepository.save(new Member("export \"quoted\""));
+        Path path = tempDir.resolve("member" + ExportFormat.NDJSON.getExtension());
+
+        // when
+        long rows = memberRepository.export(path, ExportFormat.NDJSON);
+
+        // then
+        List<String> lines = readGzip(path);
+        assertThat(lines).hasSize((int) rows);
+        assertThat(lines).anyMatch(line -> line.matches("\\{\"id\":\\d+,\"username\":\"export_ndjson\"}"));
+        assertThat(lines).anyMatch(line -> line.endsWith("\"username\":\"export \\\"quoted\\\"\"}"));
+    }
+
+    @Test
+    void exportMembers_csv() throws IOException {
+        // given
+        memberRepository.save(new Member("export_csv,comma"));
+        Path path = tempDir.resolve("member" + ExportFormat.CSV.getExtension());
+
+        // when
+        long rows = memberRepository.export(path, ExportFormat.CSV);
+
+        // then -> 헤더 + 행
+        List<String> lines = readGzip(path);
+        assertThat(lines).hasSize((int) rows + 1);
+        assertThat(lines.get(0)).isEqualTo("id,username");
+        assertThat(lines).anyMatch(line -> line.endsWith(",\"export_csv,comma\""));
+    }
+
+    @Test
+    void exportLogs() throws IOException {
+        Path path = tempDir.resolve("log" + ExportFormat.CSV.getExtension());
+
+        long rows = logRepository.export(path, ExportFormat.CSV);
+
+        assertThat(readGzip(path)).hasSize((int) rows + 1);
+    }
+
+    private static List<String> readGzip(Path path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
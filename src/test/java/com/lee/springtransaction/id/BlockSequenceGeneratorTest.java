@@ -0,0 +1,47 @@
+package com.lee.springtransaction.id;
+
+import com.lee.springtransaction.order.Order;
+import com.lee.springtransaction.propagation.Member;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 엔티티 id 생성기가 hibernate.id.block_size 로 설정되는지 확인한다.
+ */
+@SpringBootTest(properties = "spring.jpa.properties." + BlockSequenceGenerator.BLOCK_SIZE_SETTING + "=20")
+class BlockSequenceGeneratorTest {
+
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void configure(){
+        assertGenerator(Member.class, "MEMBER_SEQ");
+        assertGenerator(Order.class, "ORDERS_SEQ");
+    }
+
+    private void assertGenerator(Class<?> entityClass, String sequenceName){
+        IdentifierGenerator generator = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(entityClass).getIdentifierGenerator();
+
+        assertThat(generator).isInstanceOf(BlockSequenceGenerator.class);
+        SequenceStyleGenerator sequenceGenerator = (SequenceStyleGenerator) generator;
+        assertThat(sequenceGenerator.getOptimizer()).isInstanceOf(BlockSequenceOptimizer.class);
+        assertThat(sequenceGenerator.getOptimizer().getIncrementSize()).isEqualTo(20);
+        assertThat(sequenceGenerator.getDatabaseStructure().getIncrementSize()).isEqualTo(20);
+
+        // 시퀀스도 increment by blockSize 로 생성된다.
+        Long increment = jdbcTemplate.queryForObject(
+                "select increment from information_schema.sequences where sequence_name = ?", Long.class, sequenceName);
+        assertThat(increment).isEqualTo(20L);
+    }
+}
@@ -0,0 +1,65 @@
+package com.lee.springtransaction.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlockSequenceOptimizerTest {
+
+    @Test
+    void generate(){
+        // given -> increment by 5 시퀀스
+        BlockSequenceOptimizer optimizer = new BlockSequenceOptimizer(Long.class, 5);
+        SequenceCallback sequence = new SequenceCallback(1, 5);
+
+        // when
+        List<Object> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ids.add(optimizer.generate(sequence));
+        }
+
+        // then -> 블록이 소진될 때만 시퀀스를 호출한다.
+        assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L);
+        assertThat(sequence.calls).isEqualTo(3);
+        assertThat(optimizer.getLastSourceValue().makeValue()).isEqualTo(11L);
+        assertThat(optimizer.getIncrementSize()).isEqualTo(5);
+        assertThat(optimizer.applyIncrementSizeToSourceValues()).isTrue();
+    }
+
+    @Test
+    void returnClass(){
+        BlockSequenceOptimizer optimizer = new BlockSequenceOptimizer(Integer.class, 5);
+        assertThat(optimizer.generate(new SequenceCallback(1, 5))).isEqualTo(1);
+    }
+
+    private static final class SequenceCallback implements AccessCallback {
+
+        private long next;
+        private final long increment;
+        private int calls;
+
+        private SequenceCallback(long start, long increment) {
+            this.next = start;
+            this.increment = increment;
+        }
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            calls++;
+            IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(next);
+            next += increment;
+            return value;
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+}
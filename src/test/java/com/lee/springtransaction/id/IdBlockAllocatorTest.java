@@ -0,0 +1,93 @@
+package com.lee.springtransaction.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdBlockAllocatorTest {
+
+    @Test
+    void exhaustedBeforeInstall(){
+        IdBlockAllocator allocator = new IdBlockAllocator(3);
+        assertThat(allocator.tryNext()).isEqualTo(IdBlockAllocator.EXHAUSTED);
+    }
+
+    @Test
+    void blockRollover(){
+        // given
+        IdBlockAllocator allocator = new IdBlockAllocator(3);
+
+        // when -> 블록 하나 [10, 13) 를 모두 사용
+        assertThat(allocator.install(10)).isEqualTo(10);
+        assertThat(allocator.tryNext()).isEqualTo(11);
+        assertThat(allocator.tryNext()).isEqualTo(12);
+
+        // then -> 소진되면 새 블록을 설치해야 한다.
+        assertThat(allocator.tryNext()).isEqualTo(IdBlockAllocator.EXHAUSTED);
+        assertThat(allocator.tryNext()).isEqualTo(IdBlockAllocator.EXHAUSTED);
+        assertThat(allocator.install(13)).isEqualTo(13);
+        assertThat(allocator.tryNext()).isEqualTo(14);
+    }
+
+    @Test
+    void invalidBlockSize(){
+        assertThatThrownBy(() -> new IdBlockAllocator(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 여러 쓰레드가 동시에 발급하고 동시에 블록을 설치해도 id가 중복되지 않는다.
+     */
+    @Test
+    void concurrentAllocation_noDuplicates() throws Exception {
+        // given -> 시퀀스 (increment by blockSize)
+        int blockSize = 7;
+        int threads = 8;
+        int idsPerThread = 10_000;
+        IdBlockAllocator allocator = new IdBlockAllocator(blockSize);
+        AtomicLong sequence = new AtomicLong(1);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // when
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                Callable<List<Long>> task = () -> {
+                    start.await();
+                    List<Long> ids = new ArrayList<>(idsPerThread);
+                    for (int i = 0; i < idsPerThread; i++) {
+                        long id = allocator.tryNext();
+                        if(id == IdBlockAllocator.EXHAUSTED){
+                            id = allocator.install(sequence.getAndAdd(blockSize));
+                        }
+                        ids.add(id);
+                    }
+                    return ids;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+
+            // then
+            Set<Long> all = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                all.addAll(future.get());
+            }
+            assertThat(all).hasSize(threads * idsPerThread);
+        }finally {
+            executor.shutdown();
+        }
+    }
+}
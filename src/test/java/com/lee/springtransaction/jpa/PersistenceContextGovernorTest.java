@@ -0,0 +1,91 @@
+package com.lee.springtransaction.jpa;
+
+import com.lee.springtransaction.order.Order;
+import com.lee.springtransaction.order.OrderRepository;
+import com.lee.springtransaction.propagation.Member;
+import com.lee.springtransaction.propagation.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "transaction.persistence-context.flush-clear-threshold=5")
+class PersistenceContextGovernorTest {
+
+    @Autowired PersistenceContextGovernor governor;
+    @Autowired MemberRepository memberRepository;
+    @Autowired OrderRepository orderRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void flushClear(){
+        // given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName("governor.flushClear");
+
+        // when -> 5건마다 flush/clear
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 12; i++) {
+                memberRepository.save(new Member("governor_flushClear_" + i));
+            }
+        });
+
+        // then -> 영속성 컨텍스트는 임계치 이상 커지지 않고, 모든 회원이 저장된다.
+        PersistenceContextStats stats = governor.stats("governor.flushClear");
+        assertThat(stats.getTransactions()).isEqualTo(1);
+        assertThat(stats.getFlushClears()).isEqualTo(2);
+        assertThat(stats.getPeakEntities()).isEqualTo(5);
+        assertThat(stats.getPeakEstimatedBytes()).isGreaterThan(0);
+        for (int i = 0; i < 12; i++) {
+            assertThat(memberRepository.find("governor_flushClear_" + i)).isPresent();
+        }
+    }
+
+    /**
+     * 스프링 데이터 레포지토리(@Repository 없는 인터페이스 프록시)에도 적용된다.
+     */
+    @Test
+    void springDataRepository(){
+        // given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName("governor.springDataRepository");
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 12; i++) {
+                Order order = new Order();
+                order.setUsername("governor_springDataRepository_" + i);
+                orderRepository.save(order);
+            }
+        });
+
+        // then
+        PersistenceContextStats stats = governor.stats("governor.springDataRepository");
+        assertThat(stats.getFlushClears()).isEqualTo(2);
+        assertThat(stats.getPeakEntities()).isEqualTo(5);
+    }
+
+    @Test
+    void belowThreshold(){
+        // given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName("governor.belowThreshold");
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                memberRepository.save(new Member("governor_belowThreshold_" + i));
+            }
+        });
+
+        // then -> 집계만 한다.
+        PersistenceContextStats stats = governor.stats("governor.belowThreshold");
+        assertThat(stats.getFlushClears()).isZero();
+        assertThat(stats.getPeakEntities()).isEqualTo(3);
+        assertThat(stats.getPeakEstimatedBytes())
+                .isGreaterThanOrEqualTo(3L * PersistenceContextGovernor.ENTRY_BYTES);
+    }
+}
@@ -0,0 +1,47 @@
+package com.lee.springtransaction.metrics;
+
+import com.lee.springtransaction.propagation.LogRepository;
+import com.lee.springtransaction.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+class TransactionMetricsTest {
+
+    @Autowired TransactionMetrics transactionMetrics;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MemberService memberService;
+
+    @Test
+    void wrapped(){
+        assertThat(transactionManager).isInstanceOf(MeteredTransactionManager.class);
+    }
+
+    /**
+     * joinV2 -> LogRepository.save(REQUIRES_NEW)에서 예외
+     * 로그 트랜잭션은 외부 트랜잭션을 보류하고 시작 -> 롤백 -> 외부 트랜잭션 재개
+     */
+    @Test
+    void requiresNew_suspendResume(){
+        // given
+        TransactionStats logSave = transactionMetrics.stats(LogRepository.class.getName() + ".save");
+        long suspends = logSave.getSuspends();
+        long resumes = logSave.getResumes();
+        long rollbacks = logSave.getRollbacks();
+
+        // when
+        memberService.joinV2("로그예외_requiresNew_suspendResume");
+
+        // then
+        assertThat(logSave.getSuspends()).isEqualTo(suspends + 1);
+        assertThat(logSave.getResumes()).isEqualTo(resumes + 1);
+        assertThat(logSave.getRollbacks()).isEqualTo(rollbacks + 1);
+        log.info("metrics -> {}", transactionMetrics.getAll());
+    }
+}
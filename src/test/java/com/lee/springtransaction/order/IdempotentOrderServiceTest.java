@@ -0,0 +1,147 @@
+package com.lee.springtransaction.order;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class IdempotentOrderServiceTest {
+
+    @Autowired IdempotentOrderService idempotentOrderService;
+    @Autowired OrderService orderService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void replay() throws NotEnoughMoneyException {
+        // given
+        String key = "replay";
+        assertThat(idempotentOrderService.order(newOrder("정상", key))).isEqualTo("완료");
+        long replays = idempotentOrderService.getReplays();
+
+        // when -> 클라이언트 재시도
+        String payStatus = idempotentOrderService.order(newOrder("정상", key));
+
+        // then -> 다시 저장하지 않고 저장된 상태를 반환
+        assertThat(payStatus).isEqualTo("완료");
+        assertThat(idempotentOrderService.getReplays()).isEqualTo(replays + 1);
+        assertThat(countOrders(key)).isEqualTo(1);
+    }
+
+    @Test
+    void replay_waiting() throws NotEnoughMoneyException {
+        // given -> 잔고 부족 주문은 '대기'로 저장된다.
+        String key = "replay_waiting";
+        assertThatThrownBy(() -> idempotentOrderService.order(newOrder("잔고부족", key)))
+                .isInstanceOf(NotEnoughMoneyException.class);
+
+        // when -> 재시도된 주문은 예외 없이 저장된 상태를 반환한다.
+        String payStatus = idempotentOrderService.order(newOrder("잔고부족", key));
+
+        // then
+        assertThat(payStatus).isEqualTo("대기");
+        assertThat(countOrders(key)).isEqualTo(1);
+    }
+
+    /**
+     * 입금 확인으로 '완료'가 되면 재시도된 주문도 '완료'를 반환한다. (캐시에 남은 '대기'를 반환하지 않는다)
+     */
+    @Test
+    void replay_afterCompletePayment() throws NotEnoughMoneyException {
+        // given -> '대기'로 저장되고 캐시에도 '대기'
+        String key = "replay_afterCompletePayment";
+        Order order = newOrder("잔고부족", key);
+        assertThatThrownBy(() -> idempotentOrderService.order(order))
+                .isInstanceOf(NotEnoughMoneyException.class);
+        assertThat(idempotentOrderService.order(newOrder("잔고부족", key))).isEqualTo("대기");
+
+        // when
+        assertThat(orderService.completePayment(order.getId())).isTrue();
+
+        // then
+        assertThat(idempotentOrderService.order(newOrder("잔고부족", key))).isEqualTo("완료");
+    }
+
+    /**
+     * 롤백된 주문은 저장되지 않았으므로 재시도하면 다시 실행한다.
+     */
+    @Test
+    void retryAfterRollback() throws NotEnoughMoneyException {
+        // given
+        String key = "retryAfterRollback";
+        assertThatThrownBy(() -> idempotentOrderService.order(newOrder("예외", key)))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(countOrders(key)).isZero();
+
+        // when
+        String payStatus = idempotentOrderService.order(newOrder("retryAfterRollback", key));
+
+        // then
+        assertThat(payStatus).isEqualTo("완료");
+        assertThat(countOrders(key)).isEqualTo(1);
+    }
+
+    /**
+     * 같은 키로 동시에 주문해도 한 건만 저장되고(결제도 한 번), 모두 같은 상태를 받는다.
+     */
+    @Test
+    void concurrentDuplicates() throws Exception {
+        // given
+        String key = "concurrentDuplicates";
+        int clients = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            orders.add(newOrder("concurrentDuplicates", key));
+        }
+
+        // when
+        try {
+            for (Order order : orders) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                        return idempotentOrderService.order(order);
+                    }catch (Exception e){
+                        throw new IllegalStateException(e);
+                    }
+                }, executor));
+            }
+            start.countDown();
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }finally {
+            executor.shutdown();
+        }
+
+        // then
+        for (CompletableFuture<String> future : futures) {
+            assertThat(future.get()).isEqualTo("완료");
+        }
+        assertThat(countOrders(key)).isEqualTo(1);
+        // 결제 로직은 키를 선점한 주문에서만 실행된다. (payStatus를 설정한 주문이 한 건)
+        assertThat(orders).filteredOn(order -> order.getPayStatus() != null).hasSize(1);
+    }
+
+    private int countOrders(String key){
+        return jdbcTemplate.queryForObject("select count(*) from orders where idempotency_key = ?", Integer.class, key);
+    }
+
+    private static Order newOrder(String username, String key){
+        Order order = new Order();
+        order.setUsername(username);
+        order.setIdempotencyKey(key);
+        return order;
+    }
+}
@@ -6,9 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
 @Slf4j
@@ -60,4 +62,92 @@ class OrderServiceTest {
         Order findOrder = orderRepository.findById(order.getId()).get();
         assertThat(findOrder.getPayStatus()).isEqualTo("대기");
     }
-}
\ No newline at end of file
+
+    @Test
+    void existingOrder() throws NotEnoughMoneyException {
+        // given -> 이미 저장된 주문
+        Order order = new Order();
+        order.setUsername("기존주문");
+        orderRepository.save(order);
+        Long id = order.getId();
+
+        // when
+        orderService.order(order);
+
+        // then -> 새 주문을 만들지 않고 같은 주문을 수정한다.
+        assertThat(order.getId()).isEqualTo(id);
+        assertThat(orderRepository.findAll())
+                .filteredOn(o -> "기존주문".equals(o.getUsername()))
+                .extracting(Order::getId)
+                .containsExactly(id);
+        assertThat(orderRepository.findById(id).get().getPayStatus()).isEqualTo("완료");
+    }
+
+    @Test
+    void orderAll(){
+        // given
+        Order complete = new Order();
+        complete.setUsername("정상");
+        Order runtime = new Order();
+        runtime.setUsername("예외");
+        Order biz = new Order();
+        biz.setUsername("잔고부족");
+
+        // when
+        OrderBulkResult result = orderService.orderAll(List.of(complete, runtime, biz));
+
+        // then -> 주문 단위로 order()와 같은 결과
+        assertThat(result.getCompleted()).isEqualTo(1);
+        assertThat(result.getWaiting()).isEqualTo(1);
+        assertThat(result.getFailed()).containsExactly(runtime);
+        assertThat(orderRepository.findById(complete.getId()).get().getPayStatus()).isEqualTo("완료");
+        assertThat(orderRepository.findById(biz.getId()).get().getPayStatus()).isEqualTo("대기");
+        assertThat(runtime.getId()).isNull();
+    }
+
+    /**
+     * chunk 저장이 실패하면(유니크 인덱스 위반) 한 건씩 다시 저장한다. 결제 판단 결과는 처음 것을 사용한다.
+     */
+    @Test
+    void orderAll_chunkFailure(){
+        // given -> 같은 멱등 키 두 건
+        Order first = new Order();
+        first.setUsername("orderAll_chunkFailure");
+        first.setIdempotencyKey("orderAll_chunkFailure");
+        Order duplicate = new Order();
+        duplicate.setUsername("orderAll_chunkFailure");
+        duplicate.setIdempotencyKey("orderAll_chunkFailure");
+        Order biz = new Order();
+        biz.setUsername("잔고부족");
+
+        // when
+        OrderBulkResult result = orderService.orderAll(List.of(first, biz, duplicate));
+
+        // then
+        assertThat(result.getCompleted()).isEqualTo(1);
+        assertThat(result.getWaiting()).isEqualTo(1);
+        assertThat(result.getFailed()).containsExactly(duplicate);
+        assertThat(orderRepository.findById(first.getId()).get().getPayStatus()).isEqualTo("완료");
+        assertThat(orderRepository.findById(biz.getId()).get().getPayStatus()).isEqualTo("대기");
+    }
+
+    @Test
+    void completePayment() throws NotEnoughMoneyException {
+        // given
+        Order order = new Order();
+        order.setUsername("잔고부족");
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+        Long version = orderRepository.findById(order.getId()).get().getVersion();
+
+        // when -> 같은 콜백이 두 번 와도 한 번만 변경된다.
+        boolean first = orderService.completePayment(order.getId());
+        boolean second = orderService.completePayment(order.getId());
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("완료");
+        assertThat(findOrder.getVersion()).isEqualTo(version + 1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.lee.springtransaction.outbox;
+
+import com.lee.springtransaction.order.NotEnoughMoneyException;
+import com.lee.springtransaction.order.Order;
+import com.lee.springtransaction.order.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 백그라운드 relay는 테스트 설정(config/application.properties)에서 꺼져 있다. -> 테스트에서 직접 drain 한다.
+ */
+@Slf4j
+@SpringBootTest
+class OutboxRelayTest {
+
+    @Autowired OrderService orderService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void payResultEvents() throws NotEnoughMoneyException {
+        // given
+        Order complete = newOrder("정상");
+        Order waiting = newOrder("잔고부족");
+        Order failed = newOrder("예외");
+        orderService.order(complete);
+        assertThatThrownBy(() -> orderService.order(waiting)).isInstanceOf(NotEnoughMoneyException.class);
+        assertThatThrownBy(() -> orderService.order(failed)).isInstanceOf(RuntimeException.class);
+
+        InMemoryOutboxConsumer consumer = new InMemoryOutboxConsumer();
+        OutboxRelay relay = new OutboxRelay(jdbcTemplate, consumer, 1, 10, 200, 30_000);
+
+        // when
+        relay.drain(relay.getWorkerIds().get(0));
+
+        // then -> 커밋된 주문만 이벤트가 전달된다.
+        List<OutboxEvent> received = consumer.getReceived();
+        assertThat(eventTypeOf(received, complete)).isEqualTo(OrderOutbox.ORDER_COMPLETED);
+        assertThat(eventTypeOf(received, waiting)).isEqualTo(OrderOutbox.ORDER_WAITING_PAYMENT);
+        assertThat(received).noneMatch(event -> event.getAggregateId().equals(failed.getId()));
+    }
+
+    /**
+     * 여러 작업자가 동시에 drain 해도 같은 이벤트를 두 번 전달하지 않는다.
+     */
+    @Test
+    void multipleWorkers_noDoubleDelivery(){
+        // given
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            orders.add(newOrder("multipleWorkers_" + i));
+        }
+        orderService.orderAll(orders);
+
+        InMemoryOutboxConsumer consumer = new InMemoryOutboxConsumer();
+        OutboxRelay relay = new OutboxRelay(jdbcTemplate, consumer, 4, 10, 200, 30_000);
+
+        // when
+        CompletableFuture.allOf(relay.getWorkerIds().stream()
+                .map(workerId -> CompletableFuture.runAsync(() -> relay.drain(workerId)))
+                .toArray(CompletableFuture[]::new)).join();
+
+        // then
+        List<OutboxEvent> received = consumer.getReceived();
+        Set<Long> distinctIds = received.stream().map(OutboxEvent::getId).collect(Collectors.toSet());
+        assertThat(distinctIds).hasSameSizeAs(received);
+
+        Set<Long> orderIds = received.stream().map(OutboxEvent::getAggregateId).collect(Collectors.toSet());
+        assertThat(orderIds).containsAll(orders.stream().map(Order::getId).collect(Collectors.toList()));
+    }
+
+    private Order newOrder(String username){
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+
+    private String eventTypeOf(List<OutboxEvent> events, Order order){
+        return events.stream()
+                .filter(event -> event.getAggregateId().equals(order.getId()))
+                .map(OutboxEvent::getEventType)
+                .findFirst().orElse(null);
+    }
+}
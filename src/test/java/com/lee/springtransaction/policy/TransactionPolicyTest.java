@@ -0,0 +1,149 @@
+package com.lee.springtransaction.policy;
+
+import com.lee.springtransaction.metrics.MeteredTransactionManager;
+import com.lee.springtransaction.order.NotEnoughMoneyException;
+import com.lee.springtransaction.order.Order;
+import com.lee.springtransaction.order.OrderService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "transaction.policy.methods[PolicyService.serializable].isolation=SERIALIZABLE",
+        "transaction.policy.methods[PolicyService.explicit].isolation=SERIALIZABLE",
+        "transaction.policy.methods[PolicyService.slow].timeout=1s",
+        "transaction.policy.methods[PolicyService.lockTimeout].lock-timeout=3s"
+})
+class TransactionPolicyTest {
+
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired TransactionPolicyRegistry registry;
+    @Autowired PolicyService policyService;
+    @Autowired OrderService orderService;
+    @Autowired DataSource dataSource;
+
+    @Test
+    void wrapped(){
+        assertThat(transactionManager).isInstanceOf(MeteredTransactionManager.class);
+        assertThat(((MeteredTransactionManager) transactionManager).getDelegate())
+                .isInstanceOf(PolicyEnforcingTransactionManager.class);
+    }
+
+    @Test
+    void isolation(){
+        assertThat(policyService.serializable()).isEqualTo(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        // @Transactional에 지정한 값이 우선
+        assertThat(policyService.explicit()).isEqualTo(TransactionDefinition.ISOLATION_READ_UNCOMMITTED);
+    }
+
+    @Test
+    void timeout(){
+        TransactionPolicy policy = registry.resolve(PolicyService.class.getName() + ".slow");
+        long overruns = policy.getOverruns();
+        long rollbacks = policy.getRollbacks();
+
+        assertThatThrownBy(() -> policyService.slow())
+                .isInstanceOf(TransactionTimedOutException.class);
+
+        assertThat(policy.getRollbacks()).isEqualTo(rollbacks + 1);
+        assertThat(policy.getOverruns()).isEqualTo(overruns + 1);
+    }
+
+    /**
+     * application.properties -> OrderService.order : timeout 5s, lock-timeout 2s
+     */
+    @Test
+    void lockTimeout() throws NotEnoughMoneyException {
+        TransactionPolicy policy = registry.resolve(OrderService.class.getName() + ".order");
+        long hits = policy.getHits();
+
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+
+        assertThat(policy.getLockTimeoutMillis()).isEqualTo(2000);
+        assertThat(policy.getHits()).isEqualTo(hits + 1);
+        assertThat(registry.resolve("com.lee.springtransaction.propagation.MemberService.joinV2").getPattern())
+                .isEqualTo("MemberService.join*");
+    }
+
+    /**
+     * 락 대기 시간은 첫 SQL을 실행할 때(실제 커넥션을 가져올 때) 설정하고, 트랜잭션이 끝나면 설정 전 값으로 되돌린다.
+     */
+    @Test
+    void lockTimeout_appliedOnConnection() throws SQLException {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long before = jdbcTemplate.queryForObject("select lock_timeout()", Long.class);
+
+        assertThat(policyService.lockTimeout(pool)).isEqualTo(3000);
+
+        // 트랜잭션 시작 시에는 커넥션을 가져오지 않는다.
+        assertThat(policyService.activeConnectionsBeforeSql).isZero();
+        assertThat(jdbcTemplate.queryForObject("select lock_timeout()", Long.class)).isEqualTo(before);
+    }
+
+    @TestConfiguration
+    static class PolicyTestConfig {
+
+        @Bean
+        PolicyService policyService(EntityManager em, DataSource dataSource){
+            return new PolicyService(em, dataSource);
+        }
+    }
+
+    @Slf4j
+    static class PolicyService {
+
+        private final EntityManager em;
+        private final JdbcTemplate jdbcTemplate;
+        int activeConnectionsBeforeSql = -1;
+
+        PolicyService(EntityManager em, DataSource dataSource) {
+            this.em = em;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        @Transactional
+        public Integer serializable(){
+            return TransactionSynchronizationManager.getCurrentTransactionIsolationLevel();
+        }
+
+        @Transactional(isolation = Isolation.READ_UNCOMMITTED)
+        public Integer explicit(){
+            return TransactionSynchronizationManager.getCurrentTransactionIsolationLevel();
+        }
+
+        @Transactional
+        public Long lockTimeout(HikariPoolMXBean pool){
+            activeConnectionsBeforeSql = pool.getActiveConnections();
+            return jdbcTemplate.queryForObject("select lock_timeout()", Long.class);
+        }
+
+        // 타임아웃이 지난 다음 쿼리를 실행하면 TransactionTimedOutException
+        @Transactional
+        public void slow() throws InterruptedException {
+            Thread.sleep(1_100);
+            em.createQuery("select m from Member m").getResultList();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.lee.springtransaction.propagation;
+
+import com.lee.springtransaction.cache.LookupCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AsyncLogWriter를 테스트용 설정(작은 큐, 긴 flush-interval)으로 직접 생성한다.
+ */
+@SpringBootTest
+class AsyncLogWriterTest {
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired LookupCache<String, Log> logFinderCache;
+    @Autowired LogRepository logRepository;
+
+    /**
+     * 큐가 가득 차면 offer-timeout 만큼 호출한 쓰레드를 대기시키고, 그래도 자리가 없으면 버린다.
+     */
+    @Test
+    void queueFull_backpressureAndDrop() throws InterruptedException {
+        // given -> 첫 번째 배치 저장을 막아서 writer 쓰레드를 붙잡아 둔다.
+        GatedTransactionManager gated = new GatedTransactionManager(transactionManager);
+        AsyncLogWriter writer = new AsyncLogWriter(jdbcTemplate, gated, logFinderCache, 1, 1, 10, 100, 50);
+        writer.start();
+        try {
+            writer.write(new Log("queueFull_first"));
+            assertThat(gated.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            writer.write(new Log("queueFull_queued")); // 큐(크기 1)에 들어간다.
+
+            // when
+            long start = System.nanoTime();
+            writer.write(new Log("queueFull_dropped"));
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // then -> offer-timeout 동안 대기한 다음 버린다.
+            assertThat(waitedMillis).isGreaterThanOrEqualTo(100);
+            assertThat(writer.getDroppedCount()).isEqualTo(1);
+
+            gated.gate.countDown();
+            assertThat(writer.awaitFlushed(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(logRepository.find("queueFull_first")).isPresent();
+            assertThat(logRepository.find("queueFull_queued")).isPresent();
+            assertThat(logRepository.find("queueFull_dropped")).isEmpty();
+        }finally {
+            gated.gate.countDown();
+            writer.stop();
+        }
+    }
+
+    /**
+     * 배치 중 한 건이 실패하면 한 건씩 다시 저장한다. -> 실패한 로그만 버리고 나머지는 저장된다.
+     */
+    @Test
+    void batchFailure_fallbackPerRow() throws InterruptedException {
+        // given -> 3건이 모이면 하나의 배치로 저장한다.
+        AsyncLogWriter writer = new AsyncLogWriter(jdbcTemplate, transactionManager, logFinderCache, 100, 3, 1000, 100, 50);
+        writer.start();
+        try {
+            // when -> 컬럼 길이(255)를 넘는 로그가 배치에 섞여 있다.
+            writer.write(new Log("batchFailure_ok1"));
+            writer.write(new Log("batchFailure_" + "x".repeat(300)));
+            writer.write(new Log("batchFailure_ok2"));
+
+            // then
+            assertThat(writer.awaitFlushed(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(writer.getDroppedCount()).isEqualTo(1);
+            assertThat(logRepository.find("batchFailure_ok1")).isPresent();
+            assertThat(logRepository.find("batchFailure_ok2")).isPresent();
+        }finally {
+            writer.stop();
+        }
+    }
+
+    // gate가 열릴 때까지 트랜잭션 시작을 막는다.
+    static class GatedTransactionManager implements PlatformTransactionManager {
+
+        private final PlatformTransactionManager delegate;
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        GatedTransactionManager(PlatformTransactionManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+            entered.countDown();
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            return delegate.getTransaction(definition);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) throws TransactionException {
+            delegate.commit(status);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) throws TransactionException {
+            delegate.rollback(status);
+        }
+    }
+}
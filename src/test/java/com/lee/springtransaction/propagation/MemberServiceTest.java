@@ -1,5 +1,6 @@
 package com.lee.springtransaction.propagation;
 
+import com.lee.springtransaction.execution.AfterCommitExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -7,6 +8,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.UnexpectedRollbackException;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,6 +26,12 @@ class MemberServiceTest {
     @Autowired
     LogRepository logRepository;
 
+    @Autowired
+    AsyncLogWriter asyncLogWriter;
+
+    @Autowired
+    AfterCommitExecutor afterCommitExecutor;
+
     /**
      * memberService        -> @Transactional : OFF
      * memberRepository     -> @Transactional : ON
@@ -162,4 +171,102 @@ class MemberServiceTest {
         assertTrue(memberRepository.find(username).isPresent());
         assertTrue(logRepository.find(username).isEmpty());
     }
-}
\ No newline at end of file
+
+    /**
+     * memberService        -> @Transactional : ON
+     * memberRepository     -> @Transactional : ON
+     * logRepository        -> @Transactional : ON(NESTED) Exception
+     *
+     * [정리]
+     * NESTED -> 외부 트랜잭션의 커넥션에 savepoint를 만들고, 예외 시 savepoint까지만 롤백한다.
+     */
+    @Test
+    void recoverException_nested(){
+        // given
+        String username = "로그예외_recoverException_nested";
+
+        // when
+        memberService.joinV4(username);
+
+        // then -> 멤버 저장, 로그 롤백
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isEmpty());
+    }
+
+    /**
+     * memberService        -> @Transactional : ON
+     * memberRepository     -> @Transactional : ON
+     * logRepository        -> @Transactional : ON(NESTED)
+     */
+    @Test
+    void nested_success(){
+        // given
+        String username = "nested_success";
+
+        // when
+        memberService.joinV4(username);
+
+        // then -> 모든 데이터 정상 저장
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isPresent());
+    }
+
+    /**
+     * memberService        -> @Transactional : ON
+     * memberRepository     -> @Transactional : ON
+     * asyncLogWriter       -> 커밋 이후 트랜잭션 없이 큐에 담고, 백그라운드에서 배치 저장
+     */
+    @Test
+    void asyncLog_success() throws InterruptedException {
+        // given
+        String username = "asyncLog_success";
+
+        // when
+        memberService.joinV3(username);
+
+        // then -> 멤버 저장, 로그는 배치로 저장된다.
+        assertTrue(afterCommitExecutor.awaitIdle(5, TimeUnit.SECONDS));
+        assertTrue(asyncLogWriter.awaitFlushed(5, TimeUnit.SECONDS));
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isPresent());
+    }
+
+    /**
+     * 조회 캐시는 커밋 이후에만 무효화된다.
+     * 조회 결과 없음도 캐시되지만, 커밋된 저장은 다음 조회에 바로 보인다.
+     */
+    @Test
+    void finderCache_evictAfterCommit(){
+        // given -> 조회 결과 없음이 캐시된다.
+        String username = "finderCache_evictAfterCommit";
+        assertTrue(memberRepository.find(username).isEmpty());
+        assertTrue(logRepository.find(username).isEmpty());
+
+        // when
+        memberService.joinV1(username);
+
+        // then -> 커밋 이후 무효화되어 저장된 데이터가 조회된다.
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isPresent());
+    }
+
+    /**
+     * 캐시된 회원은 호출자마다 다른 복사본이다. 한 호출자가 변경해도 다른 호출자에게 보이지 않는다.
+     */
+    @Test
+    void finderCache_returnsCopies(){
+        // given
+        String username = "finderCache_returnsCopies";
+        memberService.joinV1(username);
+        Member first = memberRepository.find(username).get();
+
+        // when
+        first.setUsername("changed");
+
+        // then
+        Member second = memberRepository.find(username).get();
+        assertNotSame(first, second);
+        assertEquals(username, second.getUsername());
+        assertEquals(first.getId(), second.getId());
+    }
+}
@@ -0,0 +1,66 @@
+package com.lee.springtransaction.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(properties = "reactive.enabled=true")
+class ReactiveMemberServiceTest {
+
+    @Autowired ReactiveMemberService memberService;
+    @Autowired ReactiveMemberRepository memberRepository;
+    @Autowired ReactiveLogRepository logRepository;
+
+    /**
+     * memberService        -> TransactionalOperator : REQUIRED
+     * memberRepository     -> TransactionalOperator : REQUIRED
+     * logRepository        -> TransactionalOperator : REQUIRES_NEW
+     */
+    @Test
+    void outerTxOn_success(){
+        // given
+        String username = "reactive_outerTxOn_success";
+
+        // when
+        StepVerifier.create(memberService.joinV1(username)).verifyComplete();
+
+        // then -> 모든 데이터 정상 저장
+        StepVerifier.create(memberRepository.find(username)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(logRepository.find(username)).expectNextCount(1).verifyComplete();
+    }
+
+    /**
+     * logRepository        -> TransactionalOperator : REQUIRES_NEW Exception
+     * 예외가 전파되어 회원 트랜잭션도 롤백된다.
+     */
+    @Test
+    void outerTxOn_fail(){
+        // given
+        String username = "로그예외_reactive_outerTxOn_fail";
+
+        // when
+        StepVerifier.create(memberService.joinV1(username)).verifyError(RuntimeException.class);
+
+        // then -> 모든 데이터 롤백
+        StepVerifier.create(memberRepository.find(username)).verifyComplete();
+        StepVerifier.create(logRepository.find(username)).verifyComplete();
+    }
+
+    /**
+     * logRepository        -> TransactionalOperator : REQUIRES_NEW Exception
+     * 로그 트랜잭션만 롤백되고 회원은 저장된다.
+     */
+    @Test
+    void recoverException_success(){
+        // given
+        String username = "로그예외_reactive_recoverException_success";
+
+        // when
+        StepVerifier.create(memberService.joinV2(username)).verifyComplete();
+
+        // then -> 멤버 저장, 로그 롤백
+        StepVerifier.create(memberRepository.find(username)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(logRepository.find(username)).verifyComplete();
+    }
+}
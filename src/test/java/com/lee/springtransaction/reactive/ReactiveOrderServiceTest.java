@@ -0,0 +1,108 @@
+package com.lee.springtransaction.reactive;
+
+import com.lee.springtransaction.order.NotEnoughMoneyException;
+import com.lee.springtransaction.order.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "reactive.enabled=true")
+class ReactiveOrderServiceTest {
+
+    @Autowired ReactiveOrderService orderService;
+    @Autowired ReactiveOrderRepository orderRepository;
+    @Autowired ReactiveDatabase database;
+
+    @Test
+    void complete(){
+        // given
+        Order order = newOrder("정상");
+
+        // when
+        StepVerifier.create(orderService.order(order)).expectNext(order).verifyComplete();
+
+        // then
+        StepVerifier.create(orderRepository.findById(order.getId()))
+                .assertNext(findOrder -> assertThat(findOrder.getPayStatus()).isEqualTo("완료"))
+                .verifyComplete();
+    }
+
+    @Test
+    void runtimeException(){
+        // given
+        Order order = newOrder("예외");
+
+        // when -> 롤백
+        StepVerifier.create(orderService.order(order)).verifyError(RuntimeException.class);
+
+        // then -> 저장되지 않는다.
+        assertThat(order.getId()).isNull();
+    }
+
+    /**
+     * 주문을 저장한 다음 같은 트랜잭션에서 시스템 예외 -> 저장한 주문도 롤백된다.
+     */
+    @Test
+    void runtimeException_afterSave(){
+        // given
+        Order order = newOrder("reactive_afterSave");
+        order.setPayStatus("완료");
+
+        // when
+        Mono<Order> saveThenFail = orderRepository.save(order)
+                .then(Mono.error(new RuntimeException("시스템 예외")));
+        StepVerifier.create(database.getRequired().transactional(saveThenFail)).verifyError(RuntimeException.class);
+
+        // then -> insert는 실행되었지만(id 발급) 커밋되지 않는다.
+        assertThat(order.getId()).isNotNull();
+        StepVerifier.create(orderRepository.findById(order.getId())).verifyComplete();
+    }
+
+    @Test
+    void bizException(){
+        // given
+        Order order = newOrder("잔고부족");
+
+        // when -> 커밋 이후 NotEnoughMoneyException
+        StepVerifier.create(orderService.order(order)).verifyError(NotEnoughMoneyException.class);
+
+        // then -> '대기' 상태로 저장된다.
+        StepVerifier.create(orderRepository.findById(order.getId()))
+                .assertNext(findOrder -> assertThat(findOrder.getPayStatus()).isEqualTo("대기"))
+                .verifyComplete();
+    }
+
+    /**
+     * 적은 쓰레드로 많은 주문을 동시에 처리한다. (커넥션 풀 크기보다 많은 동시 요청)
+     */
+    @Test
+    void concurrentOrders(){
+        // given
+        List<Order> orders = IntStream.range(0, 200)
+                .mapToObj(i -> newOrder("reactive_concurrent_" + i))
+                .collect(Collectors.toList());
+
+        // when
+        StepVerifier.create(Flux.fromIterable(orders).flatMap(orderService::order, 64).count())
+                .expectNext(200L)
+                .verifyComplete();
+
+        // then
+        assertThat(orders).allMatch(order -> order.getId() != null && "완료".equals(order.getPayStatus()));
+    }
+
+    private static Order newOrder(String username){
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
@@ -0,0 +1,247 @@
+package com.lee.springtransaction.retry;
+
+import com.lee.springtransaction.cache.LookupCache;
+import com.lee.springtransaction.execution.AfterCommitExecutor;
+import com.lee.springtransaction.export.StreamingExporter;
+import com.lee.springtransaction.order.NotEnoughMoneyException;
+import com.lee.springtransaction.order.Order;
+import com.lee.springtransaction.order.OrderRepository;
+import com.lee.springtransaction.order.OrderService;
+import com.lee.springtransaction.outbox.OrderOutbox;
+import com.lee.springtransaction.outbox.OutboxEventRepository;
+import com.lee.springtransaction.outbox.OutboxRelay;
+import com.lee.springtransaction.propagation.Member;
+import com.lee.springtransaction.propagation.MemberRepository;
+import com.lee.springtransaction.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class TransientRetryTest {
+
+    @Autowired RetryService retryService;
+    @Autowired TransientRetryInterceptor retryInterceptor;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired FailOnceOrderOutbox failOnceOrderOutbox;
+    @Autowired MemberService memberService;
+    @Autowired FailOnceMemberRepository failOnceMemberRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void reset(){
+        retryService.attempts.set(0);
+        retryService.transactions.set(0);
+    }
+
+    /**
+     * 두 번 락 획득 실패 후 성공 -> 3번 실행, 매번 새 트랜잭션
+     */
+    @Test
+    void transientFailure_retried(){
+        RetryStats stats = retryInterceptor.stats(RetryService.class.getName() + ".lockFailTwice");
+        long retries = stats == null ? 0 : stats.getRetries();
+
+        retryService.lockFailTwice();
+
+        assertThat(retryService.attempts.get()).isEqualTo(3);
+        assertThat(retryService.transactions.get()).isEqualTo(3);
+        assertThat(retryInterceptor.stats(RetryService.class.getName() + ".lockFailTwice").getRetries())
+                .isEqualTo(retries + 2);
+    }
+
+    @Test
+    void transientFailure_exhausted(){
+        assertThatThrownBy(() -> retryService.lockFailAlways())
+                .isInstanceOf(CannotAcquireLockException.class);
+        assertThat(retryService.attempts.get()).isEqualTo(2);
+    }
+
+    /**
+     * 잔고 부족(체크 예외)은 재시도하지 않는다.
+     */
+    @Test
+    void businessException_notRetried(){
+        assertThatThrownBy(() -> retryService.notEnoughMoney())
+                .isInstanceOf(NotEnoughMoneyException.class);
+        assertThat(retryService.attempts.get()).isEqualTo(1);
+    }
+
+    /**
+     * 이미 트랜잭션 안에서 호출되면 재시도하지 않는다. (가장 바깥 트랜잭션에서만 재시도)
+     */
+    @Test
+    void insideOuterTransaction_notRetried(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> retryService.lockFailTwice()))
+                .isInstanceOf(CannotAcquireLockException.class);
+        assertThat(retryService.attempts.get()).isEqualTo(1);
+    }
+
+    /**
+     * 실제 OrderService.order()에서 일시적 실패 -> 이전 시도의 id, version을 버리고 새 주문으로 저장한다.
+     */
+    @Test
+    void orderService_transientFailure_retried() throws NotEnoughMoneyException {
+        // given -> 첫 번째 시도는 주문 저장, 결제 후 outbox 기록에서 락 획득 실패
+        Order order = new Order();
+        order.setUsername("정상");
+        failOnceOrderOutbox.failNext.set(true);
+
+        // when
+        orderService.order(order);
+
+        // then -> 두 번째 시도에서 저장한 주문 한 건, 결제 결과 이벤트 한 건
+        assertThat(failOnceOrderOutbox.failNext.get()).isFalse();
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("완료");
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from outbox_event where aggregate_id = ?", Integer.class, order.getId())).isEqualTo(1);
+    }
+
+    /**
+     * joinV1은 로그를 REQUIRES_NEW로 먼저 커밋한다. -> 바깥 트랜잭션 커밋이 일시적으로 실패해도 다시 실행하지 않는다.
+     */
+    @Test
+    void requiresNewSideEffect_notRetried(){
+        // given -> 회원 저장 트랜잭션의 커밋이 한 번 락 획득 실패
+        String username = "커밋실패";
+        failOnceMemberRepository.failNextCommit.set(true);
+
+        // when
+        assertThatThrownBy(() -> memberService.joinV1(username))
+                .isInstanceOf(CannotAcquireLockException.class);
+
+        // then -> 회원은 롤백, 로그는 한 건만 커밋
+        assertThat(failOnceMemberRepository.failNextCommit.get()).isFalse();
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from member where username = ?", Integer.class, username)).isEqualTo(0);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from log where message = ?", Integer.class, username)).isEqualTo(1);
+    }
+
+    @TestConfiguration
+    static class RetryTestConfig {
+
+        @Bean
+        RetryService retryService(){
+            return new RetryService();
+        }
+
+        @Bean
+        @Primary
+        FailOnceOrderOutbox failOnceOrderOutbox(OutboxEventRepository outboxEventRepository,
+                                                AfterCommitExecutor afterCommitExecutor,
+                                                ObjectProvider<OutboxRelay> outboxRelay){
+            return new FailOnceOrderOutbox(outboxEventRepository, afterCommitExecutor, outboxRelay);
+        }
+
+        @Bean
+        @Primary
+        FailOnceMemberRepository failOnceMemberRepository(EntityManager em, LookupCache<String, Member> memberFinderCache,
+                                                          StreamingExporter streamingExporter){
+            return new FailOnceMemberRepository(em, memberFinderCache, streamingExporter);
+        }
+    }
+
+    // failNextCommit이 켜져 있으면 회원을 저장한 트랜잭션의 커밋을 한 번만 락 획득 실패로 만든다.
+    static class FailOnceMemberRepository extends MemberRepository {
+
+        final AtomicBoolean failNextCommit = new AtomicBoolean();
+
+        FailOnceMemberRepository(EntityManager em, LookupCache<String, Member> memberFinderCache,
+                                 StreamingExporter streamingExporter) {
+            super(em, memberFinderCache, streamingExporter);
+        }
+
+        @Override
+        @Transactional
+        public void save(Member member) {
+            super.save(member);
+            if(failNextCommit.compareAndSet(true, false)){
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        throw new CannotAcquireLockException("lock timeout");
+                    }
+                });
+            }
+        }
+    }
+
+    // failNext가 켜져 있으면 한 번만 락 획득 실패를 발생시킨다.
+    static class FailOnceOrderOutbox extends OrderOutbox {
+
+        final AtomicBoolean failNext = new AtomicBoolean();
+
+        FailOnceOrderOutbox(OutboxEventRepository outboxEventRepository, AfterCommitExecutor afterCommitExecutor,
+                            ObjectProvider<OutboxRelay> outboxRelay) {
+            super(outboxEventRepository, afterCommitExecutor, outboxRelay);
+        }
+
+        @Override
+        @Transactional(propagation = Propagation.MANDATORY)
+        public void payResult(Order order) {
+            if(failNext.compareAndSet(true, false)){
+                throw new CannotAcquireLockException("lock timeout");
+            }
+            super.payResult(order);
+        }
+    }
+
+    @Slf4j
+    static class RetryService {
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicInteger transactions = new AtomicInteger();
+
+        @TransientRetry(initialBackoffMillis = 1, maxBackoffMillis = 5)
+        @Transactional
+        public void lockFailTwice(){
+            if(TransactionSynchronizationManager.isActualTransactionActive()){
+                transactions.incrementAndGet();
+            }
+            if(attempts.incrementAndGet() <= 2){
+                log.info("락 획득 실패 attempt -> {}", attempts.get());
+                throw new CannotAcquireLockException("lock timeout");
+            }
+        }
+
+        @TransientRetry(maxAttempts = 2, initialBackoffMillis = 1, maxBackoffMillis = 5)
+        @Transactional
+        public void lockFailAlways(){
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("lock timeout");
+        }
+
+        @TransientRetry(initialBackoffMillis = 1, maxBackoffMillis = 5)
+        @Transactional
+        public void notEnoughMoney() throws NotEnoughMoneyException {
+            attempts.incrementAndGet();
+            throw new NotEnoughMoneyException("잔고가 부족합니다.");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.lee.springtransaction.verifier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class TransactionalUsageVerifierTest {
+
+    @Autowired TransactionalUsageVerifier verifier;
+
+    @Test
+    void scan(){
+        // when
+        List<TransactionalMisuse> violations = verifier.scan(MisuseService.class);
+
+        // then
+        assertThat(violations)
+                .extracting(TransactionalMisuse::getKind, TransactionalMisuse::getMethodName)
+                .containsExactlyInAnyOrder(
+                        tuple(TransactionalMisuse.Kind.SELF_INVOCATION, "internal"),
+                        tuple(TransactionalMisuse.Kind.SELF_INVOCATION, "requiresNew"),
+                        tuple(TransactionalMisuse.Kind.NON_PUBLIC, "packagePrivate"),
+                        tuple(TransactionalMisuse.Kind.POST_CONSTRUCT, "init"));
+    }
+
+    @Test
+    void cached(){
+        assertThat(verifier.scan(MisuseService.class)).isSameAs(verifier.scan(MisuseService.class));
+    }
+
+    static class MisuseService {
+
+        // 트랜잭션 없이 내부 호출 -> 검출
+        public void external(){
+            internal();
+        }
+
+        @Transactional
+        public void internal(){
+        }
+
+        // 같은 속성(REQUIRED)의 내부 호출은 이미 트랜잭션 안이므로 검출하지 않는다.
+        @Transactional
+        public void outer(){
+            internal();
+            requiresNew();
+        }
+
+        // REQUIRES_NEW 내부 호출 -> 신규 트랜잭션이 시작되지 않는다. 검출
+        @Transactional(propagation = Propagation.REQUIRES_NEW)
+        public void requiresNew(){
+        }
+
+        @Transactional
+        void packagePrivate(){
+        }
+
+        @PostConstruct
+        @Transactional
+        public void init(){
+        }
+    }
+}